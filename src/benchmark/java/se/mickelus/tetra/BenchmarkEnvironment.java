@@ -0,0 +1,140 @@
+package se.mickelus.tetra;
+
+import net.minecraft.advancements.criterion.ItemPredicate;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Bootstrap;
+import se.mickelus.tetra.capabilities.PlayerCapabilityCache;
+import se.mickelus.tetra.data.DataManager;
+import se.mickelus.tetra.data.DataStore;
+import se.mickelus.tetra.data.MergingDataStore;
+import se.mickelus.tetra.items.TetraItemGroup;
+import se.mickelus.tetra.items.modular.BasicMajorModule;
+import se.mickelus.tetra.items.modular.BasicModule;
+import se.mickelus.tetra.items.modular.ItemModular;
+import se.mickelus.tetra.items.modular.ItemPredicateModular;
+import se.mickelus.tetra.items.modular.impl.ModularBladedItem;
+import se.mickelus.tetra.items.modular.impl.toolbelt.ToolbeltModule;
+import se.mickelus.tetra.module.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sets up the registries that the benchmarks exercise without starting a game. Vanilla registries are bootstrapped, tetra registries are
+ * created in the same order as when the mod is constructed, and data is loaded as if it had been received from a server.
+ */
+public class BenchmarkEnvironment {
+    private static boolean isSetup = false;
+
+    public static synchronized void setup() {
+        if (isSetup) {
+            return;
+        }
+
+        Bootstrap.register();
+
+        ItemPredicate.register(new ResourceLocation("tetra:modular_item"), ItemPredicateModular::new);
+
+        new DataManager();
+
+        ModuleRegistry moduleRegistry = new ModuleRegistry();
+        moduleRegistry.registerModuleType(new ResourceLocation(TetraMod.MOD_ID, "basic_module"), BasicModule::new);
+        moduleRegistry.registerModuleType(new ResourceLocation(TetraMod.MOD_ID, "basic_major_module"), BasicMajorModule::new);
+        moduleRegistry.registerModuleType(new ResourceLocation(TetraMod.MOD_ID, "multi_major_module"), MultiSlotModule::new);
+        moduleRegistry.registerModuleType(new ResourceLocation(TetraMod.MOD_ID, "toolbelt_module"), ToolbeltModule::new);
+
+        new RepairRegistry();
+        new SchemaRegistry();
+        new ItemUpgradeRegistry();
+        new PlayerCapabilityCache();
+        new TetraItemGroup();
+
+        isSetup = true;
+    }
+
+    /**
+     * Loads the data bundled with the mod for the given directories, in the same order as the data manager holds the stores.
+     * @param directories the data store directories to load, e.g. "modules" or "schemas"
+     */
+    public static void loadData(String ... directories) {
+        List<String> requested = Arrays.asList(directories);
+        Arrays.stream(DataManager.instance.getDataStores())
+                .filter(dataStore -> requested.contains(dataStore.getDirectory()))
+                .forEach(dataStore -> loadData(dataStore.getDirectory(), readBundledData(dataStore)));
+    }
+
+    /**
+     * Loads the given data into the store for the given directory, as if it had been received from a server.
+     * @param directory a data store directory
+     * @param data serialized data by location, merging stores (e.g. modules) expect an array of entries
+     */
+    public static void loadData(String directory, Map<ResourceLocation, String> data) {
+        DataManager.instance.onDataRecieved(directory, data, Collections.emptyList());
+    }
+
+    private static Map<ResourceLocation, String> readBundledData(DataStore dataStore) {
+        Path root;
+        try {
+            root = Paths.get(BenchmarkEnvironment.class.getResource("/data").toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+
+        boolean isMerging = dataStore instanceof MergingDataStore;
+        Map<ResourceLocation, String> result = new HashMap<>();
+        try (Stream<Path> namespaces = Files.list(root)) {
+            for (Path namespace : namespaces.collect(Collectors.toList())) {
+                Path directory = namespace.resolve(dataStore.getDirectory());
+                if (!Files.isDirectory(directory)) {
+                    continue;
+                }
+
+                try (Stream<Path> files = Files.walk(directory)) {
+                    for (Path file : files.filter(path -> path.toString().endsWith(".json")).collect(Collectors.toList())) {
+                        String path = directory.relativize(file).toString().replace('\\', '/');
+                        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                        result.put(new ResourceLocation(namespace.getFileName().toString(), path.substring(0, path.length() - 5)),
+                                isMerging ? "[" + json + "]" : json);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates an itemstack of the given modular item.
+     * @param item a modular item
+     * @param modules pairs of module keys and variant keys, e.g. "sword/basic_blade", "basic_blade/iron"
+     */
+    public static ItemStack createStack(ItemModular item, String ... modules) {
+        ItemStack itemStack = new ItemStack(item);
+        for (int i = 0; i + 1 < modules.length; i += 2) {
+            ModuleRegistry.instance.getModule(modules[i]).addModule(itemStack, modules[i + 1], null);
+        }
+        return itemStack;
+    }
+
+    /**
+     * Creates an iron sword, made up of the same modules as when a vanilla iron sword is upgraded.
+     */
+    public static ItemStack createSword(ModularBladedItem item) {
+        return createStack(item,
+                "sword/basic_blade", "basic_blade/iron",
+                "sword/basic_hilt", "basic_hilt/stick",
+                "sword/decorative_pommel", "decorative_pommel/iron",
+                "sword/makeshift_guard", "makeshift_guard/iron");
+    }
+}
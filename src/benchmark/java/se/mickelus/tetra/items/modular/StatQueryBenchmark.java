@@ -0,0 +1,83 @@
+package se.mickelus.tetra.items.modular;
+
+import net.minecraft.item.ItemStack;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import se.mickelus.tetra.BenchmarkEnvironment;
+import se.mickelus.tetra.capabilities.Capability;
+import se.mickelus.tetra.items.modular.impl.ModularBladedItem;
+import se.mickelus.tetra.module.ItemEffect;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures stat queries on a modular item once its snapshot has been cached. Run through {@link #main} to also check that the
+ * queries allocate close to nothing, the main method fails if any benchmark allocates more than {@link #maxBytesPerOperation}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatQueryBenchmark {
+    private static final double maxBytesPerOperation = 16;
+
+    private ModularBladedItem item;
+    private ItemStack itemStack;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.setup();
+        BenchmarkEnvironment.loadData("tweaks", "improvements", "modules", "synergies");
+
+        item = new ModularBladedItem();
+        itemStack = BenchmarkEnvironment.createSword(item);
+
+        // populate the snapshot cache, the benchmarks measure the steady state
+        item.getSnapshot(itemStack);
+    }
+
+    @Benchmark
+    public double damage() {
+        return item.getDamageModifier(itemStack);
+    }
+
+    @Benchmark
+    public double speed() {
+        return item.getSpeedModifier(itemStack);
+    }
+
+    @Benchmark
+    public void capabilities(Blackhole blackhole) {
+        blackhole.consume(item.getCapabilityLevel(itemStack, Capability.cut));
+        blackhole.consume(item.getCapabilityEfficiency(itemStack, Capability.cut));
+    }
+
+    @Benchmark
+    public int effect() {
+        return item.getEffectLevel(itemStack, ItemEffect.sweeping);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StatQueryBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        for (RunResult runResult : new Runner(options).run()) {
+            Result allocations = runResult.getSecondaryResults().get("·gc.alloc.rate.norm");
+            if (allocations != null && allocations.getScore() > maxBytesPerOperation) {
+                throw new IllegalStateException(String.format("%s allocates %.1f bytes per operation, expected at most %.1f",
+                        runResult.getParams().getBenchmark(), allocations.getScore(), maxBytesPerOperation));
+            }
+        }
+    }
+}
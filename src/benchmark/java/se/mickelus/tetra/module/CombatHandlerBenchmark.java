@@ -0,0 +1,132 @@
+package se.mickelus.tetra.module;
+
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.SharedMonsterAttributes;
+import net.minecraft.entity.ai.attributes.IAttributeInstance;
+import net.minecraft.entity.monster.ZombieEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.util.DamageSource;
+import net.minecraftforge.event.entity.living.LivingAttackEvent;
+import net.minecraftforge.event.entity.living.LivingDamageEvent;
+import net.minecraftforge.event.entity.living.LivingExperienceDropEvent;
+import net.minecraftforge.event.entity.living.LivingHurtEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import se.mickelus.tetra.BenchmarkEnvironment;
+import se.mickelus.tetra.items.modular.impl.ModularBladedItem;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Simulates a tick of a mob farm: 500 damage events where most are a player sweeping mobs with a modular sword, and the rest are mobs
+ * taking cramming damage or hitting each other. Every event is passed through the combat handlers the same way the event bus would.
+ * Entities are mocked, {@link #mocksOnly} reads the same entity state without calling any handlers and can be used to tell the cost of
+ * the mocks apart from the cost of the handlers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombatHandlerBenchmark {
+    private static final int eventsPerTick = 500;
+    private static final float damage = 7;
+
+    private ItemEffectHandler handler;
+
+    private LivingAttackEvent[] attackEvents;
+    private LivingHurtEvent[] hurtEvents;
+    private LivingDamageEvent[] damageEvents;
+    private LivingExperienceDropEvent[] experienceEvents;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.setup();
+        BenchmarkEnvironment.loadData("tweaks", "improvements", "modules", "synergies");
+
+        handler = new ItemEffectHandler();
+
+        ItemStack sword = BenchmarkEnvironment.createSword(new ModularBladedItem());
+
+        PlayerEntity player = mockEntity(PlayerEntity.class, sword);
+        ZombieEntity armedZombie = mockEntity(ZombieEntity.class, new ItemStack(Items.IRON_SWORD));
+
+        attackEvents = new LivingAttackEvent[eventsPerTick];
+        hurtEvents = new LivingHurtEvent[eventsPerTick];
+        damageEvents = new LivingDamageEvent[eventsPerTick];
+        experienceEvents = new LivingExperienceDropEvent[eventsPerTick / 10];
+
+        for (int i = 0; i < eventsPerTick; i++) {
+            LivingEntity target = mockEntity(ZombieEntity.class, ItemStack.EMPTY);
+
+            DamageSource source;
+            if (i % 10 < 6) {
+                source = DamageSource.causePlayerDamage(player);
+            } else if (i % 10 < 9) {
+                source = DamageSource.CRAMMING;
+            } else {
+                source = DamageSource.causeMobDamage(armedZombie);
+            }
+
+            attackEvents[i] = new LivingAttackEvent(target, source, damage);
+            hurtEvents[i] = new LivingHurtEvent(target, source, damage);
+            damageEvents[i] = new LivingDamageEvent(target, source, damage);
+
+            if (i % 10 == 0) {
+                experienceEvents[i / 10] = new LivingExperienceDropEvent(target, player, 5);
+            }
+        }
+    }
+
+    private static <T extends LivingEntity> T mockEntity(Class<T> entityClass, ItemStack heldItem) {
+        T entity = mock(entityClass);
+        IAttributeInstance attribute = mock(IAttributeInstance.class);
+        when(attribute.getValue()).thenReturn((double) damage);
+
+        when(entity.getHeldItemMainhand()).thenReturn(heldItem);
+        when(entity.getHeldItemOffhand()).thenReturn(ItemStack.EMPTY);
+        when(entity.getActiveItemStack()).thenReturn(ItemStack.EMPTY);
+        when(entity.getAttribute(SharedMonsterAttributes.ATTACK_DAMAGE)).thenReturn(attribute);
+        when(entity.getAttribute(SharedMonsterAttributes.ARMOR_TOUGHNESS)).thenReturn(attribute);
+
+        return entity;
+    }
+
+    @Benchmark
+    public void mobFarmTick(Blackhole blackhole) {
+        for (int i = 0; i < eventsPerTick; i++) {
+            hurtEvents[i].setAmount(damage);
+            damageEvents[i].setAmount(damage);
+
+            handler.onLivingAttack(attackEvents[i]);
+            handler.onLivingHurt(hurtEvents[i]);
+            handler.onLivingDamage(damageEvents[i]);
+
+            blackhole.consume(damageEvents[i].getAmount());
+        }
+
+        for (LivingExperienceDropEvent event : experienceEvents) {
+            handler.onExperienceDrop(event);
+        }
+    }
+
+    @Benchmark
+    public void mocksOnly(Blackhole blackhole) {
+        for (int i = 0; i < eventsPerTick; i++) {
+            LivingEntity target = hurtEvents[i].getEntityLiving();
+            blackhole.consume(target.isActiveItemStackBlocking());
+            blackhole.consume(target.getHeldItemMainhand());
+            blackhole.consume(target.getHeldItemOffhand());
+
+            if (hurtEvents[i].getSource().getTrueSource() instanceof LivingEntity) {
+                blackhole.consume(((LivingEntity) hurtEvents[i].getSource().getTrueSource()).getHeldItemMainhand());
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package se.mickelus.tetra.module;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import se.mickelus.tetra.BenchmarkEnvironment;
+import se.mickelus.tetra.TetraMod;
+import se.mickelus.tetra.items.modular.impl.ModularBladedItem;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares looking up the modules of a sword by constructing a resource location for every key, which is how slot lookups used to
+ * work, with looking them up by key and with the slot lookup of the item. Run with "-prof gc" to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModuleLookupBenchmark {
+    private static final String[] slots = new String[] { ModularBladedItem.bladeKey, ModularBladedItem.hiltKey,
+            ModularBladedItem.fullerKey, ModularBladedItem.guardKey, ModularBladedItem.pommelKey };
+
+    private String[] keys;
+
+    private ModularBladedItem item;
+    private ItemStack itemStack;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.setup();
+        BenchmarkEnvironment.loadData("tweaks", "improvements", "modules", "synergies");
+
+        item = new ModularBladedItem();
+        itemStack = BenchmarkEnvironment.createSword(item);
+
+        keys = new String[] { "sword/basic_blade", "sword/basic_hilt", "sword/decorative_pommel", "sword/makeshift_guard", "" };
+    }
+
+    @Benchmark
+    public void resourceLocationLookup(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(ModuleRegistry.instance.getModule(new ResourceLocation(TetraMod.MOD_ID, key)));
+        }
+    }
+
+    @Benchmark
+    public void keyLookup(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(ModuleRegistry.instance.getModule(key));
+        }
+    }
+
+    @Benchmark
+    public void slotLookup(Blackhole blackhole) {
+        for (String slot : slots) {
+            blackhole.consume(item.getModuleFromSlot(itemStack, slot));
+        }
+    }
+}
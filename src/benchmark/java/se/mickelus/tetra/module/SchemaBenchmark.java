@@ -0,0 +1,96 @@
+package se.mickelus.tetra.module;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.util.ResourceLocation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import se.mickelus.tetra.BenchmarkEnvironment;
+import se.mickelus.tetra.TetraMod;
+import se.mickelus.tetra.items.modular.impl.ModularBladedItem;
+import se.mickelus.tetra.module.schema.UpgradeSchema;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures what a refresh of the workbench costs with the bundled schemas plus 1,200 synthetic schemas. Most synthetic schemas apply
+ * to slots that the sword does not have, as schemas for other items would. {@link #allSchemas} filters every schema the way the
+ * workbench did before schemas were indexed by slot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaBenchmark {
+    private static final int syntheticSchemaCount = 1200;
+    private static final int syntheticSlotCount = 55;
+
+    private static final String[] swordSlots = new String[] { ModularBladedItem.bladeKey, ModularBladedItem.hiltKey,
+            ModularBladedItem.fullerKey, ModularBladedItem.guardKey, ModularBladedItem.pommelKey };
+
+    private PlayerEntity player;
+    private ItemStack itemStack;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        BenchmarkEnvironment.setup();
+        BenchmarkEnvironment.loadData("tweaks", "improvements", "modules", "synergies", "schemas");
+
+        itemStack = BenchmarkEnvironment.createSword(new ModularBladedItem());
+
+        Map<ResourceLocation, String> schemas = new HashMap<>();
+        for (int i = 0; i < syntheticSchemaCount; i++) {
+            int slotIndex = i % (swordSlots.length + syntheticSlotCount);
+            String slot = slotIndex < swordSlots.length ? swordSlots[slotIndex] : "synthetic/slot_" + slotIndex;
+            schemas.put(new ResourceLocation(TetraMod.MOD_ID, "synthetic/schema_" + i), String.format("[{"
+                    + "\"slots\": [\"%s\"],"
+                    + "\"materialSlotCount\": 1,"
+                    + "\"outcomes\": [{"
+                    + "    \"material\": { \"item\": \"minecraft:iron_ingot\" },"
+                    + "    \"moduleKey\": \"sword/basic_blade\","
+                    + "    \"moduleVariant\": \"basic_blade/iron\""
+                    + "}]"
+                    + "}]", slot));
+        }
+        BenchmarkEnvironment.loadData("schemas", schemas);
+
+        // schemas that are revealed by materials look through the inventory of the player
+        player = mock(PlayerEntity.class);
+        PlayerInventory inventory = new PlayerInventory(player);
+        inventory.mainInventory.set(0, new ItemStack(Items.IRON_INGOT, 12));
+        inventory.mainInventory.set(1, new ItemStack(Items.OAK_PLANKS, 32));
+        inventory.mainInventory.set(2, new ItemStack(Items.STICK, 8));
+        Field inventoryField = PlayerEntity.class.getDeclaredField("inventory");
+        inventoryField.setAccessible(true);
+        inventoryField.set(player, inventory);
+    }
+
+    @Benchmark
+    public UpgradeSchema[] availableSchemas() {
+        return ItemUpgradeRegistry.instance.getAvailableSchemas(player, itemStack);
+    }
+
+    @Benchmark
+    public void slotSchemas(Blackhole blackhole) {
+        for (String slot : swordSlots) {
+            blackhole.consume(ItemUpgradeRegistry.instance.getSchemas(slot));
+        }
+    }
+
+    @Benchmark
+    public UpgradeSchema[] allSchemas() {
+        return SchemaRegistry.instance.getAllSchemas().stream()
+                .filter(schema -> schema.isApplicableForItem(itemStack))
+                .filter(schema -> schema.isVisibleForPlayer(player, itemStack))
+                .toArray(UpgradeSchema[]::new);
+    }
+}
@@ -51,7 +51,9 @@ import se.mickelus.tetra.blocks.geode.*;
 import se.mickelus.tetra.blocks.workbench.BasicWorkbenchBlock;
 import se.mickelus.tetra.blocks.workbench.WorkbenchContainer;
 import se.mickelus.tetra.blocks.workbench.WorkbenchTile;
+import se.mickelus.tetra.capabilities.PlayerCapabilityCache;
 import se.mickelus.tetra.data.DataManager;
+import se.mickelus.tetra.data.RequestDataPacket;
 import se.mickelus.tetra.data.UpdateDataPacket;
 import se.mickelus.tetra.data.provider.BlockstateProvider;
 import se.mickelus.tetra.data.provider.EnchantmentProvider;
@@ -120,6 +122,13 @@ public class TetraMod {
 
         LootConditionManager.registerCondition(new FortuneBonusCondition.Serializer());
 
+        // modules have to be set up before schemas on reload complete, and the schema registry listens to modules being recreated
+        ModuleRegistry moduleRegistry = new ModuleRegistry();
+        moduleRegistry.registerModuleType(new ResourceLocation(MOD_ID, "basic_module"), BasicModule::new);
+        moduleRegistry.registerModuleType(new ResourceLocation(MOD_ID, "basic_major_module"), BasicMajorModule::new);
+        moduleRegistry.registerModuleType(new ResourceLocation(MOD_ID, "multi_major_module"), MultiSlotModule::new);
+        moduleRegistry.registerModuleType(new ResourceLocation(MOD_ID, "toolbelt_module"), ToolbeltModule::new);
+
         new RepairRegistry();
 
         SchemaRegistry schemaRegistry = new SchemaRegistry();
@@ -127,11 +136,7 @@ public class TetraMod {
 
         new ItemUpgradeRegistry();
 
-        ModuleRegistry moduleRegistry = new ModuleRegistry();
-        moduleRegistry.registerModuleType(new ResourceLocation(MOD_ID, "basic_module"), BasicModule::new);
-        moduleRegistry.registerModuleType(new ResourceLocation(MOD_ID, "basic_major_module"), BasicMajorModule::new);
-        moduleRegistry.registerModuleType(new ResourceLocation(MOD_ID, "multi_major_module"), MultiSlotModule::new);
-        moduleRegistry.registerModuleType(new ResourceLocation(MOD_ID, "toolbelt_module"), ToolbeltModule::new);
+        new PlayerCapabilityCache();
 
         new TetraItemGroup();
 
@@ -229,6 +234,7 @@ public class TetraMod {
         packetHandler.registerPacket(HonePacket.class, HonePacket::new);
         packetHandler.registerPacket(SettlePacket.class, SettlePacket::new);
         packetHandler.registerPacket(UpdateDataPacket.class, UpdateDataPacket::new);
+        packetHandler.registerPacket(RequestDataPacket.class, RequestDataPacket::new);
         packetHandler.registerPacket(SecondaryAbilityPacket.class, SecondaryAbilityPacket::new);
 
         WorkbenchTile.init(packetHandler);
@@ -18,7 +18,6 @@ import se.mickelus.tetra.capabilities.Capability;
 import se.mickelus.tetra.capabilities.CapabilityHelper;
 
 import java.util.Comparator;
-import java.util.Map;
 
 public class ConfigActionImpl extends ConfigAction {
 
@@ -53,14 +52,14 @@ public class ConfigActionImpl extends ConfigAction {
         if (!player.world.isRemote) {
             ServerWorld world = (ServerWorld) player.world;
             LootTable table = world.getServer().getLootTableManager().getLootTableFromLocation(lootTable);
-            ItemStack toolStack = requiredCapabilities.valueMap.entrySet().stream()
-                    .sorted(Comparator.comparing(Map.Entry::getValue))
-                    .findFirst()
-                    .map(entry -> {
-                        ItemStack providingStack = CapabilityHelper.getPlayerProvidingItemStack(entry.getKey(), entry.getValue(), player);
+            ItemStack toolStack = requiredCapabilities.getValues().stream()
+                    .min(Comparator.comparing(requiredCapabilities::getLevel))
+                    .map(capability -> {
+                        int level = requiredCapabilities.getLevel(capability);
+                        ItemStack providingStack = CapabilityHelper.getPlayerProvidingItemStack(capability, level, player);
 
                         if (providingStack.isEmpty()) {
-                            providingStack = CapabilityHelper.getToolbeltProvidingItemStack(entry.getKey(), entry.getValue(), player);
+                            providingStack = CapabilityHelper.getToolbeltProvidingItemStack(capability, level, player);
                         }
 
                         return providingStack;
@@ -1,6 +1,5 @@
 package se.mickelus.tetra.capabilities;
 
-import com.google.common.collect.Sets;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.PlayerEntity;
@@ -11,6 +10,7 @@ import net.minecraft.world.World;
 import se.mickelus.tetra.blocks.ITetraBlock;
 import se.mickelus.tetra.items.modular.ItemModular;
 import se.mickelus.tetra.items.modular.impl.toolbelt.ToolbeltHelper;
+import se.mickelus.tetra.items.modular.impl.toolbelt.ToolbeltView;
 import se.mickelus.tetra.items.modular.impl.toolbelt.inventory.QuickslotInventory;
 import se.mickelus.tetra.items.modular.impl.toolbelt.inventory.StorageInventory;
 import se.mickelus.tetra.module.ItemEffect;
@@ -19,7 +19,6 @@ import se.mickelus.tetra.util.CastOptional;
 
 import javax.annotation.Nullable;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -44,42 +43,19 @@ public class CapabilityHelper {
     }
 
     public static int getPlayerEffectLevel(PlayerEntity player, ItemEffect effect) {
-        return Stream.concat(player.inventory.offHandInventory.stream(), player.inventory.mainInventory.stream())
-                .filter(itemStack -> !itemStack.isEmpty())
-                .map(CapabilityHelper::getReplacement)
-                .filter(itemStack -> itemStack.getItem() instanceof ItemModular)
-                .map(itemStack -> ((ItemModular) itemStack.getItem()).getEffectLevel(itemStack, effect))
-                .max(Integer::compare)
-                .orElse(0);
+        return PlayerCapabilityCache.instance.getEffectLevel(player, effect);
     }
 
     public static double getPlayerEffectEfficiency(PlayerEntity player, ItemEffect effect) {
-        return Stream.concat(player.inventory.offHandInventory.stream(), player.inventory.mainInventory.stream())
-                .filter(itemStack -> !itemStack.isEmpty())
-                .map(CapabilityHelper::getReplacement)
-                .filter(itemStack -> itemStack.getItem() instanceof ItemModular)
-                .max(Comparator.comparingInt(itemStack -> ((ItemModular) itemStack.getItem()).getEffectLevel(itemStack, effect)))
-                .map(itemStack -> ((ItemModular) itemStack.getItem()).getEffectEfficiency(itemStack, effect))
-                .orElse(0d);
+        return PlayerCapabilityCache.instance.getEffectEfficiency(player, effect);
     }
 
     public static int getPlayerCapabilityLevel(PlayerEntity player, Capability capability) {
-        return Stream.concat(player.inventory.offHandInventory.stream(), player.inventory.mainInventory.stream())
-                .filter(itemStack -> !itemStack.isEmpty())
-                .map(CapabilityHelper::getReplacement)
-                .filter(itemStack -> itemStack.getItem() instanceof ICapabilityProvider)
-                .map(itemStack -> ((ICapabilityProvider) itemStack.getItem()).getCapabilityLevel(itemStack, capability))
-                .max(Integer::compare)
-                .orElse(0);
+        return PlayerCapabilityCache.instance.getCapabilityLevel(player, capability);
     }
 
     public static Set<Capability> getPlayerCapabilities(PlayerEntity player) {
-        return Stream.concat(player.inventory.offHandInventory.stream(), player.inventory.mainInventory.stream())
-                .filter(itemStack -> !itemStack.isEmpty())
-                .map(CapabilityHelper::getReplacement)
-                .filter(itemStack -> itemStack.getItem() instanceof ICapabilityProvider)
-                .flatMap(itemStack -> ((ICapabilityProvider) itemStack.getItem()).getCapabilities(itemStack).stream())
-                .collect(Collectors.toSet());
+        return PlayerCapabilityCache.instance.getCapabilities(player);
     }
 
     public static int getInventoryCapabilityLevel(IInventory inventory, Capability capability) {
@@ -177,20 +153,14 @@ public class CapabilityHelper {
     }
 
     public static int getToolbeltCapabilityLevel(PlayerEntity player, Capability capability) {
-        return Optional.of(ToolbeltHelper.findToolbelt(player))
-                .filter(toolbeltStack -> !toolbeltStack.isEmpty())
-                .map(toolbeltStack -> Math.max(
-                        getInventoryCapabilityLevel(new QuickslotInventory(toolbeltStack), capability),
-                        getInventoryCapabilityLevel(new StorageInventory(toolbeltStack), capability)))
+        return Optional.ofNullable(ToolbeltView.get(player))
+                .map(view -> view.getCapabilityLevel(capability))
                 .orElse(0);
     }
 
     public static Set<Capability> getToolbeltCapabilities(PlayerEntity player) {
-        return Optional.of(ToolbeltHelper.findToolbelt(player))
-                .filter(toolbeltStack -> !toolbeltStack.isEmpty())
-                .map(toolbeltStack -> (Set<Capability>) Sets.union(
-                        getInventoryCapabilities(new QuickslotInventory(toolbeltStack)),
-                        getInventoryCapabilities(new StorageInventory(toolbeltStack))))
+        return Optional.ofNullable(ToolbeltView.get(player))
+                .map(ToolbeltView::getCapabilities)
                 .orElse(Collections.emptySet());
 
     }
@@ -246,15 +216,16 @@ public class CapabilityHelper {
 
     public static ItemStack getToolbeltProvidingItemStack(Capability capability, int level, Entity entity) {
         return CastOptional.cast(entity, PlayerEntity.class)
-                .map(ToolbeltHelper::findToolbelt)
-                .map(toolbeltStack -> {
-                    ItemStack itemStack = getInventoryProvidingItemStack(new QuickslotInventory(toolbeltStack), capability, level);
+                .map(ToolbeltView::get)
+                .filter(view -> view.getCapabilityLevel(capability) >= level)
+                .map(view -> {
+                    ItemStack itemStack = getInventoryProvidingItemStack(view.getQuickslotInventory(), capability, level);
 
                     if (!itemStack.isEmpty()) {
                         return itemStack;
                     }
 
-                    return getInventoryProvidingItemStack(new StorageInventory(toolbeltStack), capability, level);
+                    return getInventoryProvidingItemStack(view.getStorageInventory(), capability, level);
                 })
                 .orElse(ItemStack.EMPTY);
     }
@@ -276,6 +247,7 @@ public class CapabilityHelper {
 
     public static ItemStack getPlayerProvidingItemStack(Capability capability, int level, Entity entity) {
         return CastOptional.cast(entity, PlayerEntity.class)
+                .filter(player -> getPlayerCapabilityLevel(player, capability) >= level)
                 .map(player -> Stream.concat(Stream.of(player.getHeldItemMainhand(), player.getHeldItemOffhand()), player.inventory.mainInventory.stream()))
                 .orElse(Stream.empty())
                 .filter(itemStack -> !itemStack.isEmpty())
@@ -0,0 +1,235 @@
+package se.mickelus.tetra.capabilities;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import se.mickelus.tetra.data.DataManager;
+import se.mickelus.tetra.items.modular.ItemModular;
+import se.mickelus.tetra.module.ItemEffect;
+import se.mickelus.tetra.module.ItemUpgradeRegistry;
+import se.mickelus.tetra.module.ModuleRegistry;
+
+import java.util.*;
+
+/**
+ * Aggregated capability and effect levels for the items held in the offhand and main inventory of players, so that the capabilities
+ * of a player can be checked without resolving every item in the inventory. The slots are compared to what they held the last time
+ * the player was checked, and only slots that have changed are resolved again. Everything is dropped when modules or replacements are
+ * reloaded.
+ */
+public class PlayerCapabilityCache {
+    public static PlayerCapabilityCache instance;
+
+    private static final Capability[] capabilities = Capability.values();
+    private static final ItemEffect[] effects = ItemEffect.values();
+
+    private final Cache<PlayerEntity, PlayerEntry> entries = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    public PlayerCapabilityCache() {
+        instance = this;
+
+        ModuleRegistry.instance.onReload(entries::invalidateAll);
+        DataManager.replacementData.onReload(entries::invalidateAll);
+    }
+
+    private PlayerEntry getEntry(PlayerEntity player) {
+        PlayerEntry entry = entries.getIfPresent(player);
+        if (entry == null) {
+            entry = new PlayerEntry(player.inventory.offHandInventory.size() + player.inventory.mainInventory.size());
+            entries.put(player, entry);
+        }
+
+        entry.update(player);
+        return entry;
+    }
+
+    public int getCapabilityLevel(PlayerEntity player, Capability capability) {
+        return getEntry(player).capabilityLevels[capability.ordinal()];
+    }
+
+    public Set<Capability> getCapabilities(PlayerEntity player) {
+        return getEntry(player).capabilities;
+    }
+
+    public int getEffectLevel(PlayerEntity player, ItemEffect effect) {
+        return getEntry(player).effectLevels[effect.ordinal()];
+    }
+
+    /**
+     * @return the efficiency of the given effect for the item which provides the highest level of the effect, the first item in the
+     * inventory is used if several items provide the same level
+     */
+    public double getEffectEfficiency(PlayerEntity player, ItemEffect effect) {
+        PlayerEntry entry = getEntry(player);
+        int slot = entry.effectSlots[effect.ordinal()];
+        if (slot >= 0) {
+            ItemStack itemStack = entry.slots[slot].resolvedStack;
+            return ((ItemModular) itemStack.getItem()).getEffectEfficiency(itemStack, effect);
+        }
+
+        return 0;
+    }
+
+    private static class PlayerEntry {
+        final SlotEntry[] slots;
+
+        int[] capabilityLevels = new int[capabilities.length];
+        Set<Capability> capabilities = Collections.emptySet();
+
+        int[] effectLevels = new int[effects.length];
+        int[] effectSlots = new int[effects.length];
+
+        PlayerEntry(int slotCount) {
+            slots = new SlotEntry[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                slots[i] = new SlotEntry();
+            }
+
+            Arrays.fill(effectSlots, -1);
+        }
+
+        /**
+         * Compares the slots of the players inventory against what was seen the last time, and resolves slots that have changed. The
+         * aggregated levels are only rebuilt if a slot has changed.
+         */
+        void update(PlayerEntity player) {
+            boolean changed = false;
+            int slot = 0;
+
+            // the offhand is checked before the main inventory, so that the offhand item is the one that provides effects when several
+            // items have the same level
+            for (ItemStack itemStack : player.inventory.offHandInventory) {
+                changed |= slots[slot++].update(itemStack);
+            }
+
+            for (ItemStack itemStack : player.inventory.mainInventory) {
+                changed |= slots[slot++].update(itemStack);
+            }
+
+            if (changed) {
+                aggregate();
+            }
+        }
+
+        private void aggregate() {
+            int[] capabilityLevels = new int[PlayerCapabilityCache.capabilities.length];
+            EnumSet<Capability> capabilities = EnumSet.noneOf(Capability.class);
+            int[] effectLevels = new int[effects.length];
+            int[] effectSlots = new int[effects.length];
+            Arrays.fill(effectSlots, -1);
+
+            for (int i = 0; i < slots.length; i++) {
+                SlotEntry slot = slots[i];
+
+                capabilities.addAll(slot.capabilities);
+                for (int j = 0; j < capabilityLevels.length; j++) {
+                    capabilityLevels[j] = Math.max(capabilityLevels[j], slot.capabilityLevels[j]);
+                }
+
+                for (int j = 0; j < effectLevels.length; j++) {
+                    if (slot.effectLevels[j] > effectLevels[j]) {
+                        effectLevels[j] = slot.effectLevels[j];
+                        effectSlots[j] = i;
+                    }
+                }
+            }
+
+            this.capabilityLevels = capabilityLevels;
+            this.capabilities = Collections.unmodifiableSet(capabilities);
+            this.effectLevels = effectLevels;
+            this.effectSlots = effectSlots;
+        }
+    }
+
+    private static class SlotEntry {
+        private static final int[] noCapabilityLevels = new int[capabilities.length];
+        private static final int[] noEffectLevels = new int[effects.length];
+
+        // what the slot held when it was last resolved, modular items are identified by their identifier and replaceable items by their nbt
+        Item item = null;
+        int damage = 0;
+        Object version = null;
+
+        ItemStack resolvedStack = ItemStack.EMPTY;
+        int[] capabilityLevels = noCapabilityLevels;
+        Set<Capability> capabilities = Collections.emptySet();
+        int[] effectLevels = noEffectLevels;
+
+        /**
+         * @return true if the slot has changed since it was last resolved
+         */
+        boolean update(ItemStack itemStack) {
+            Item item = itemStack.isEmpty() ? null : itemStack.getItem();
+            int damage = item != null ? itemStack.getDamage() : 0;
+            Object version = getVersion(itemStack, item);
+
+            if (item == this.item && damage == this.damage && Objects.equals(version, this.version)) {
+                return false;
+            }
+
+            this.item = item;
+            this.damage = damage;
+            this.version = version;
+            resolve(itemStack);
+
+            return true;
+        }
+
+        private static Object getVersion(ItemStack itemStack, Item item) {
+            if (item == null) {
+                return null;
+            }
+
+            if (item instanceof ItemModular) {
+                String identifier = ((ItemModular) item).getIdentifier(itemStack);
+                if (!identifier.isEmpty()) {
+                    return identifier;
+                }
+            }
+
+            // the nbt of other items only matters if it's carried over to a replacement, hashing the nbt of e.g. shulker boxes is costly
+            if (!(item instanceof ICapabilityProvider) && !ItemUpgradeRegistry.instance.hasReplacementCandidates(item)) {
+                return null;
+            }
+
+            return itemStack.hasTag() ? itemStack.getTag().hashCode() : null;
+        }
+
+        private void resolve(ItemStack itemStack) {
+            resolvedStack = ItemStack.EMPTY;
+            capabilityLevels = noCapabilityLevels;
+            capabilities = Collections.emptySet();
+            effectLevels = noEffectLevels;
+
+            if (itemStack.isEmpty()) {
+                return;
+            }
+
+            ItemStack replacement = ItemUpgradeRegistry.instance.getReplacement(itemStack);
+            resolvedStack = replacement.isEmpty() ? itemStack.copy() : replacement;
+
+            if (resolvedStack.getItem() instanceof ICapabilityProvider) {
+                ICapabilityProvider provider = (ICapabilityProvider) resolvedStack.getItem();
+
+                capabilityLevels = new int[PlayerCapabilityCache.capabilities.length];
+                for (Capability capability : PlayerCapabilityCache.capabilities) {
+                    capabilityLevels[capability.ordinal()] = provider.getCapabilityLevel(resolvedStack, capability);
+                }
+                capabilities = provider.getCapabilities(resolvedStack);
+            }
+
+            if (resolvedStack.getItem() instanceof ItemModular) {
+                ItemModular item = (ItemModular) resolvedStack.getItem();
+
+                effectLevels = new int[effects.length];
+                for (ItemEffect effect : item.getEffects(resolvedStack)) {
+                    effectLevels[effect.ordinal()] = item.getEffectLevel(resolvedStack, effect);
+                }
+            }
+        }
+    }
+}
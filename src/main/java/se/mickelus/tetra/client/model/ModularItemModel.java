@@ -1,5 +1,7 @@
 package se.mickelus.tetra.client.model;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.mojang.datafixers.util.Pair;
@@ -19,6 +21,8 @@ import net.minecraftforge.client.model.pipeline.TRSRTransformer;
 import se.mickelus.tetra.module.data.ModuleModel;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -37,6 +41,13 @@ public final class ModularItemModel implements IModelGeometry<ModularItemModel>
 
     ModularOverrideList overrideList;
 
+    // quads for a single module layer, keyed by sprite, tint, tint index and transform. Modules are shared between many combinations
+    // so this lets new combinations be composed from already baked layers
+    private final Cache<LayerKey, List<BakedQuad>> layerQuadCache = CacheBuilder.newBuilder()
+            .maximumSize(2000)
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .build();
+
     public ModularItemModel(ItemCameraTransforms cameraTransforms, Map<String, ItemCameraTransforms> transformVariants) {
         this(cameraTransforms);
         this.transformVariants = transformVariants != null ? transformVariants : Collections.emptyMap();
@@ -85,7 +96,7 @@ public final class ModularItemModel implements IModelGeometry<ModularItemModel>
         for(int i = 0; i < moduleModels.size(); i++) {
             ModuleModel model = moduleModels.get(i);
             TextureAtlasSprite tas = spriteGetter.apply(new Material(AtlasTexture.LOCATION_BLOCKS_TEXTURE, model.location));
-            builder.addAll(getQuadsForSprite(i, tas, rotationTransform, model.tint));
+            builder.addAll(getLayerQuads(i, tas, rotationTransform, model.tint));
         }
         TextureAtlasSprite particle = spriteGetter.apply(owner.resolveTexture("particle"));
 
@@ -93,6 +104,16 @@ public final class ModularItemModel implements IModelGeometry<ModularItemModel>
                 getCameraTransforms(transformVariant));
     }
 
+    private List<BakedQuad> getLayerQuads(int tintIndex, TextureAtlasSprite sprite, TransformationMatrix transform, int color) {
+        try {
+            return layerQuadCache.get(new LayerKey(sprite, color, tintIndex, transform),
+                    () -> getQuadsForSprite(tintIndex, sprite, transform, color));
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return getQuadsForSprite(tintIndex, sprite, transform, color);
+        }
+    }
+
     protected ItemCameraTransforms getCameraTransforms(String transformVariant) {
         if (transformVariant != null && transformVariants.containsKey(transformVariant)) {
             ItemCameraTransforms variant = transformVariants.get(transformVariant);
@@ -126,15 +147,109 @@ public final class ModularItemModel implements IModelGeometry<ModularItemModel>
         int uMax = sprite.getWidth();
         int vMax = sprite.getHeight();
 
-        // todo: figure out why this doesn't work when considering fully transparent rows
-        for (int v = 0; v < vMax; v++) {
-            builder.add(buildSideQuad(transform, Direction.UP, tintIndex, color, sprite, 0, v, uMax));
-            builder.add(buildSideQuad(transform, Direction.DOWN, tintIndex, color, sprite, 0, v + 1, uMax));
+        // only emit side faces where an opaque pixel borders a transparent one (or the edge of the sprite), in the same way as
+        // vanilla ItemModelGenerator. Rows are indexed bottom to top, hence the flipped v when reading pixels
+        FaceData faceData = new FaceData(uMax, vMax);
+        boolean translucent = false;
+
+        for (int f = 0; f < sprite.getFrameCount(); f++) {
+            boolean previousU;
+            boolean[] previousV = new boolean[uMax];
+            Arrays.fill(previousV, true);
+
+            for (int v = 0; v < vMax; v++) {
+                previousU = true;
+                for (int u = 0; u < uMax; u++) {
+                    int alpha = sprite.getPixelRGBA(f, u, vMax - v - 1) >> 24 & 0xFF;
+                    boolean transparent = alpha / 255f <= 0.1f;
+
+                    if (!transparent && alpha < 255) {
+                        translucent = true;
+                    }
+
+                    if (previousU && !transparent) {
+                        faceData.set(Direction.WEST, u, v);
+                    }
+                    if (!previousU && transparent) {
+                        faceData.set(Direction.EAST, u - 1, v);
+                    }
+                    if (previousV[u] && !transparent) {
+                        faceData.set(Direction.UP, u, v);
+                    }
+                    if (!previousV[u] && transparent) {
+                        faceData.set(Direction.DOWN, u, v - 1);
+                    }
+
+                    previousU = transparent;
+                    previousV[u] = transparent;
+                }
+
+                if (!previousU) {
+                    faceData.set(Direction.EAST, uMax - 1, v);
+                }
+            }
+
+            for (int u = 0; u < uMax; u++) {
+                if (!previousV[u]) {
+                    faceData.set(Direction.DOWN, u, vMax - 1);
+                }
+            }
         }
 
-        for (int u = 0; u < uMax; u++) {
-            builder.add(buildSideQuad(transform, Direction.EAST, tintIndex, color, sprite, u + 1, 0, vMax));
-            builder.add(buildSideQuad(transform, Direction.WEST, tintIndex, color, sprite, u, 0, vMax));
+        // opaque sprites can have faces on the same row merged into a single quad, as the pixels in between are either hidden within
+        // the item or transparent. Translucent pixels would show through so those get one quad per run of faces
+        for (Direction side : new Direction[] { Direction.UP, Direction.DOWN }) {
+            int offset = side == Direction.DOWN ? 1 : 0;
+            for (int v = 0; v < vMax; v++) {
+                int start = 0;
+                int end = 0;
+                boolean building = false;
+                for (int u = 0; u < uMax; u++) {
+                    boolean face = faceData.get(side, u, v);
+                    if (face && !building) {
+                        building = true;
+                        start = u;
+                    } else if (!face && building && translucent) {
+                        builder.add(buildSideQuad(transform, side, tintIndex, color, sprite, start, v + offset, u - start));
+                        building = false;
+                    }
+
+                    if (face) {
+                        end = u + 1;
+                    }
+                }
+
+                if (building) {
+                    builder.add(buildSideQuad(transform, side, tintIndex, color, sprite, start, v + offset, end - start));
+                }
+            }
+        }
+
+        for (Direction side : new Direction[] { Direction.EAST, Direction.WEST }) {
+            int offset = side == Direction.EAST ? 1 : 0;
+            for (int u = 0; u < uMax; u++) {
+                int start = 0;
+                int end = 0;
+                boolean building = false;
+                for (int v = 0; v < vMax; v++) {
+                    boolean face = faceData.get(side, u, v);
+                    if (face && !building) {
+                        building = true;
+                        start = v;
+                    } else if (!face && building && translucent) {
+                        builder.add(buildSideQuad(transform, side, tintIndex, color, sprite, u + offset, start, v - start));
+                        building = false;
+                    }
+
+                    if (face) {
+                        end = v + 1;
+                    }
+                }
+
+                if (building) {
+                    builder.add(buildSideQuad(transform, side, tintIndex, color, sprite, u + offset, start, end - start));
+                }
+            }
         }
 
         // front
@@ -276,4 +391,73 @@ public final class ModularItemModel implements IModelGeometry<ModularItemModel>
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tracks which pixels of a sprite need a side face in each direction.
+     */
+    private static class FaceData {
+        private final EnumMap<Direction, BitSet> data = new EnumMap<>(Direction.class);
+
+        private final int uMax;
+
+        FaceData(int uMax, int vMax) {
+            this.uMax = uMax;
+
+            data.put(Direction.WEST, new BitSet(uMax * vMax));
+            data.put(Direction.EAST, new BitSet(uMax * vMax));
+            data.put(Direction.UP, new BitSet(uMax * vMax));
+            data.put(Direction.DOWN, new BitSet(uMax * vMax));
+        }
+
+        void set(Direction side, int u, int v) {
+            data.get(side).set(getIndex(u, v));
+        }
+
+        boolean get(Direction side, int u, int v) {
+            return data.get(side).get(getIndex(u, v));
+        }
+
+        private int getIndex(int u, int v) {
+            return v * uMax + u;
+        }
+    }
+
+    private static class LayerKey {
+        final TextureAtlasSprite sprite;
+        final int tint;
+        final int tintIndex;
+        final TransformationMatrix transform;
+
+        LayerKey(TextureAtlasSprite sprite, int tint, int tintIndex, TransformationMatrix transform) {
+            this.sprite = sprite;
+            this.tint = tint;
+            this.tintIndex = tintIndex;
+            this.transform = transform;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            LayerKey layerKey = (LayerKey) o;
+            return tint == layerKey.tint
+                    && tintIndex == layerKey.tintIndex
+                    && sprite == layerKey.sprite
+                    && Objects.equals(transform, layerKey.transform);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(sprite);
+            result = 31 * result + tint;
+            result = 31 * result + tintIndex;
+            result = 31 * result + (transform != null ? transform.hashCode() : 0);
+            return result;
+        }
+    }
+}
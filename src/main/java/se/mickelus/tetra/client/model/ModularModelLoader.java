@@ -22,7 +22,8 @@ public class ModularModelLoader implements IModelLoader<ModularItemModel> {
     private static List<ModularItemModel> models = new LinkedList<>();
 
     public ModularModelLoader() {
-        // module data is the last data store that contains model information
+        // module data is the last data store that contains model information, but clients are not sent stores that have not changed
+        DataManager.improvementData.onReload(ModularModelLoader::clearCaches);
         DataManager.moduleData.onReload(ModularModelLoader::clearCaches);
     }
 
@@ -27,11 +27,19 @@ import java.util.function.Function;
 public class ModularOverrideList extends ItemOverrideList {
     private static final Logger logger = LogManager.getLogger();
 
-    private Cache<CacheKey, IBakedModel> bakedModelCache = CacheBuilder.newBuilder()
+    // baked models keyed by the module models (layers) and transform variant they are made up of, shared by all itemstacks that look
+    // the same regardless of their identifier
+    private Cache<LayerListKey, IBakedModel> bakedModelCache = CacheBuilder.newBuilder()
             .maximumSize(1000)
             .expireAfterWrite(5, TimeUnit.MINUTES)
             .build();
 
+    // layer list for itemstacks that have an identifier, so that module models do not have to be resolved on every lookup
+    private Cache<CacheKey, LayerListKey> layerListCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .build();
+
 
     private ModularItemModel model;
     private IModelConfiguration owner;
@@ -53,6 +61,7 @@ public class ModularOverrideList extends ItemOverrideList {
     public void clearCache() {
         logger.debug("Clearing item model cache for " + modelLocation);
         bakedModelCache.invalidateAll();
+        layerListCache.invalidateAll();
     }
 
     @Nullable
@@ -62,10 +71,9 @@ public class ModularOverrideList extends ItemOverrideList {
         IBakedModel result = originalModel;
 
         if(!baseTag.isEmpty()) {
-            CacheKey key = getCacheKey(stack, entity, originalModel);
-
             try {
-                result = bakedModelCache.get(key, () -> getOverrideModel(stack, world, entity));
+                LayerListKey key = getLayerListKey(stack, entity, originalModel);
+                result = bakedModelCache.get(key, () -> getOverrideModel(key));
             } catch(ExecutionException e) {
                 // do nothing, return original model
                 e.printStackTrace();
@@ -74,17 +82,52 @@ public class ModularOverrideList extends ItemOverrideList {
         return result;
     }
 
-    protected IBakedModel getOverrideModel(ItemStack itemStack, @Nullable World world, @Nullable LivingEntity entity) {
+    protected IBakedModel getOverrideModel(LayerListKey key) {
+        return model.realBake(key.models, key.transformVariant, owner, bakery, spriteGetter, modelTransform, ItemOverrideList.EMPTY,
+                modelLocation);
+    }
+
+    protected LayerListKey getLayerListKey(ItemStack itemStack, @Nullable LivingEntity entity, IBakedModel original)
+            throws ExecutionException {
         ItemModular item  = (ItemModular) itemStack.getItem();
 
-        List<ModuleModel> models = item.getModels(itemStack, entity);
-        String transformVariant = item.getTransformVariant(itemStack, entity);
+        if (item.getIdentifier(itemStack).isEmpty()) {
+            return new LayerListKey(item.getModels(itemStack, entity), item.getTransformVariant(itemStack, entity));
+        }
 
-        return model.realBake(models, transformVariant, owner, bakery, spriteGetter, modelTransform, ItemOverrideList.EMPTY, modelLocation);
+        return layerListCache.get(new CacheKey(original, item.getModelCacheKey(itemStack, entity)),
+                () -> new LayerListKey(item.getModels(itemStack, entity), item.getTransformVariant(itemStack, entity)));
     }
 
-    protected CacheKey getCacheKey(ItemStack itemStack, LivingEntity entity, IBakedModel original) {
-        return new CacheKey(original, ((ItemModular) itemStack.getItem()).getModelCacheKey(itemStack, entity));
+    protected static class LayerListKey {
+
+        final List<ModuleModel> models;
+        final String transformVariant;
+
+        protected LayerListKey(List<ModuleModel> models, String transformVariant) {
+            this.models = models;
+            this.transformVariant = transformVariant;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            LayerListKey layerListKey = (LayerListKey) o;
+            return Objects.equals(models, layerListKey.models) && Objects.equals(transformVariant, layerListKey.transformVariant);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = models != null ? models.hashCode() : 0;
+            result = 31 * result + (transformVariant != null ? transformVariant.hashCode() : 0);
+            return result;
+        }
     }
 
     protected static class CacheKey {
@@ -0,0 +1,142 @@
+package se.mickelus.tetra.data;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Client side cache for data received from servers. Data is stored per server and directory, along with the content hash of each entry.
+ * Cached data is loaded when joining a server and the hashes are sent to the server, which then only has to send entries that have
+ * changed since the client last joined.
+ */
+@OnlyIn(Dist.CLIENT)
+public class DataCache {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int formatVersion = 1;
+
+    // writes are done in the background so that large stores do not stall the client thread, a single thread keeps writes in order
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Tetra data cache writer").setDaemon(true).build());
+
+    private final Path basePath;
+    private Path serverPath;
+
+    public DataCache(Path basePath) {
+        this.basePath = basePath;
+    }
+
+    /**
+     * Sets which server data is cached for, data received while no server is set is not cached.
+     * @param address The address of the server, or null to stop caching
+     */
+    public void setServer(String address) {
+        if (address != null) {
+            serverPath = basePath.resolve(Hashing.murmur3_128().hashString(address, StandardCharsets.UTF_8).toString());
+        } else {
+            serverPath = null;
+        }
+    }
+
+    /**
+     * Loads cached data for the current server into the given stores, stores without cached data are left as they are.
+     */
+    public void load(DataStore[] dataStores) {
+        if (serverPath == null) {
+            return;
+        }
+
+        for (DataStore dataStore : dataStores) {
+            Path path = getPath(serverPath, dataStore);
+            if (Files.exists(path)) {
+                try {
+                    dataStore.loadFromCache(read(path));
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to read cached {} data, it will be requested from the server", dataStore.getDirectory(), e);
+                }
+            }
+        }
+    }
+
+    public void save(DataStore dataStore) {
+        if (serverPath == null) {
+            return;
+        }
+
+        Path path = getPath(serverPath, dataStore);
+        Map<ResourceLocation, String> data = dataStore.getSyncData();
+        Map<ResourceLocation, Long> hashes = dataStore.getSyncHashes();
+        writer.submit(() -> {
+            try {
+                write(path, data, hashes);
+            } catch (IOException e) {
+                logger.warn("Failed to cache {} data", dataStore.getDirectory(), e);
+            }
+        });
+    }
+
+    private static Path getPath(Path serverPath, DataStore dataStore) {
+        return serverPath.resolve(dataStore.getDirectory() + ".bin");
+    }
+
+    private static Map<ResourceLocation, String> read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new BufferedInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != formatVersion) {
+                throw new IOException("Unsupported cache format");
+            }
+
+            int count = in.readInt();
+            Map<ResourceLocation, String> result = new HashMap<>(count);
+            for (int i = 0; i < count; i++) {
+                ResourceLocation location = new ResourceLocation(in.readUTF());
+                long hash = in.readLong();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+
+                String json = new String(data, StandardCharsets.UTF_8);
+                if (hash != DataStore.hash(json)) {
+                    throw new IOException("Content hash mismatch for " + location);
+                }
+                result.put(location, json);
+            }
+
+            return result;
+        }
+    }
+
+    private static void write(Path path, Map<ResourceLocation, String> data, Map<ResourceLocation, Long> hashes) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        // write to a temporary file first, so that the cache is never left half written
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath))))) {
+            out.writeInt(formatVersion);
+            out.writeInt(data.size());
+            for (Map.Entry<ResourceLocation, String> entry : data.entrySet()) {
+                byte[] bytes = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                out.writeUTF(entry.getKey().toString());
+                out.writeLong(hashes.get(entry.getKey()));
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,61 @@
+package se.mickelus.tetra.data;
+
+import com.google.common.collect.ImmutableSet;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Entries that were added, changed or removed the last time a data store was loaded, based on the content hash of each entry.
+ */
+public class DataChanges {
+    public static final DataChanges none = new DataChanges(ImmutableSet.of(), ImmutableSet.of(), ImmutableSet.of());
+
+    public final Set<ResourceLocation> added;
+    public final Set<ResourceLocation> changed;
+    public final Set<ResourceLocation> removed;
+
+    public DataChanges(Set<ResourceLocation> added, Set<ResourceLocation> changed, Set<ResourceLocation> removed) {
+        this.added = added;
+        this.changed = changed;
+        this.removed = removed;
+    }
+
+    public static DataChanges between(Map<ResourceLocation, Long> previousHashes, Map<ResourceLocation, Long> currentHashes) {
+        ImmutableSet.Builder<ResourceLocation> added = ImmutableSet.builder();
+        ImmutableSet.Builder<ResourceLocation> changed = ImmutableSet.builder();
+        ImmutableSet.Builder<ResourceLocation> removed = ImmutableSet.builder();
+
+        currentHashes.forEach((location, hash) -> {
+            Long previousHash = previousHashes.get(location);
+            if (previousHash == null) {
+                added.add(location);
+            } else if (!previousHash.equals(hash)) {
+                changed.add(location);
+            }
+        });
+
+        previousHashes.keySet().stream()
+                .filter(location -> !currentHashes.containsKey(location))
+                .forEach(removed::add);
+
+        return new DataChanges(added.build(), changed.build(), removed.build());
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * @return true if the given entry was added, changed or removed
+     */
+    public boolean contains(ResourceLocation location) {
+        return added.contains(location) || changed.contains(location) || removed.contains(location);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d added, %d changed, %d removed", added.size(), changed.size(), removed.size());
+    }
+}
@@ -7,6 +7,7 @@ import net.minecraft.block.Block;
 import net.minecraft.enchantment.Enchantment;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.item.Item;
+import net.minecraft.resources.IResourceManagerReloadListener;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.storage.loot.LootContext;
@@ -18,7 +19,6 @@ import net.minecraft.world.storage.loot.functions.LootFunctionManager;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.server.FMLServerAboutToStartEvent;
-import net.minecraftforge.forgespi.Environment;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import se.mickelus.tetra.TetraMod;
@@ -33,9 +33,10 @@ import se.mickelus.tetra.module.improvement.DestabilizationEffect;
 import se.mickelus.tetra.module.schema.Material;
 import se.mickelus.tetra.module.schema.RepairDefinition;
 import se.mickelus.tetra.module.schema.SchemaDefinition;
+import se.mickelus.tetra.network.PacketHandler;
 
-import java.util.Arrays;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Consumer;
 
 public class DataManager {
 
@@ -82,6 +83,12 @@ public class DataManager {
     private DataStore[] dataStores = new DataStore[] { tweakData, improvementData, moduleData, enchantmentData, synergyData,
             replacementData, schemaData, repairData, predicateData, actionData, destabilizationData, featureData };
 
+    // content hashes received from clients, kept until the last request packet for a directory has been received
+    private Map<UUID, Map<String, Map<ResourceLocation, Long>>> pendingHashes = new HashMap<>();
+
+    private List<Consumer<DataStore>> syncListeners = new LinkedList<>();
+    private List<Runnable> completeListeners = new LinkedList<>();
+
     public static DataManager instance;
 
     public DataManager() {
@@ -95,21 +102,78 @@ public class DataManager {
         for (DataStore dataStore : dataStores) {
             event.getServer().getResourceManager().addReloadListener(dataStore);
         }
+
+        // reload listeners are applied in order, so this runs once all data stores have been reloaded
+        event.getServer().getResourceManager().addReloadListener((IResourceManagerReloadListener) resourceManager -> reloadComplete());
     }
 
-    @SubscribeEvent
-    public void playerConnected(PlayerEvent.PlayerLoggedInEvent event) {
-        // todo: stop this from sending to player in singleplayer (while still sending to others in lan worlds)
-        logger.info("Sending data to client: {}", event.getPlayer().getName().getFormattedText());
+    /**
+     * Sends the content hashes for the data held by the client to the server, the server then responds with the data that is missing or
+     * differs. Called by the client when connecting to a server.
+     */
+    public void requestData() {
         for (DataStore dataStore : dataStores) {
-            dataStore.sendToPlayer((ServerPlayerEntity) event.getPlayer());
+            RequestDataPacket.create(dataStore.getDirectory(), dataStore.getSyncHashes()).forEach(PacketHandler::sendToServer);
         }
     }
 
-    public void onDataRecieved(String directory, Map<ResourceLocation, String> data) {
+    public void onHashesReceived(ServerPlayerEntity player, String directory, Map<ResourceLocation, Long> hashes, boolean last) {
+        Map<ResourceLocation, Long> playerHashes = pendingHashes
+                .computeIfAbsent(player.getUniqueID(), uuid -> new HashMap<>())
+                .computeIfAbsent(directory, dir -> new HashMap<>());
+        playerHashes.putAll(hashes);
+
+        if (last) {
+            pendingHashes.get(player.getUniqueID()).remove(directory);
+            Arrays.stream(dataStores)
+                    .filter(dataStore -> dataStore.getDirectory().equals(directory))
+                    .forEach(dataStore -> dataStore.sendToPlayer(player, playerHashes));
+        }
+    }
+
+    @SubscribeEvent
+    public void playerDisconnected(PlayerEvent.PlayerLoggedOutEvent event) {
+        pendingHashes.remove(event.getPlayer().getUniqueID());
+    }
+
+    public void onDataRecieved(String directory, Map<ResourceLocation, String> changed, Collection<ResourceLocation> removed) {
         Arrays.stream(dataStores)
                 .filter(dataStore -> dataStore.getDirectory().equals(directory))
-                .forEach(dataStore -> dataStore.loadFromPacket(data));
+                .forEach(dataStore -> {
+                    dataStore.loadFromPacket(changed, removed);
+                    syncListeners.forEach(listener -> listener.accept(dataStore));
+                });
+
+        // the client has no way of knowing if more data is on its way, so every received packet completes a reload
+        reloadComplete();
+    }
+
+    /**
+     * Listen to data received from the server
+     *
+     * @param callback A consumer that is called with the store that was updated, after the received data has been loaded
+     */
+    public void onDataSynced(Consumer<DataStore> callback) {
+        syncListeners.add(callback);
+    }
+
+    /**
+     * Listen to a reload of one or more data stores being complete. Called once all stores have been reloaded on the server, and after
+     * data has been received from the server or loaded from the cache on the client. Anything derived from the data of several stores
+     * may use this to rebuild once, rather than once for every store it depends on.
+     *
+     * @param callback A callback that is run after data stores have been reloaded
+     */
+    public void onReloadComplete(Runnable callback) {
+        completeListeners.add(callback);
+    }
+
+    void reloadComplete() {
+        completeListeners.forEach(Runnable::run);
+    }
+
+    public DataStore[] getDataStores() {
+        return dataStores;
     }
 
     /**
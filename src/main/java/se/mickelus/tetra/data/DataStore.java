@@ -1,6 +1,7 @@
 package se.mickelus.tetra.data;
 
-import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -15,25 +16,46 @@ import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.forgespi.Environment;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import se.mickelus.tetra.network.AbstractPacket;
 import se.mickelus.tetra.network.PacketHandler;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class DataStore<V> extends ReloadListener<Map<ResourceLocation, JsonElement>> {
     private static final Logger logger = LogManager.getLogger();
     protected static final int jsonExtLength = ".json".length();
 
+    // reading and deserializing data files is spread over a bounded pool, shared by all stores. Applying the data is still done on the
+    // thread that calls apply/loadFromPacket
+    private static final ExecutorService workers = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 8)),
+            new ThreadFactoryBuilder().setNameFormat("Tetra data worker %d").setDaemon(true).build());
+
     protected Gson gson;
     protected String directory;
     protected Class<V> dataClass;
 
-    protected Map<ResourceLocation, JsonElement> rawData;
+    // serialized raw data and content hashes per entry, used to only sync entries that differ from what a client already has
+    protected Map<ResourceLocation, String> syncData = Collections.emptyMap();
+    protected Map<ResourceLocation, Long> syncHashes = Collections.emptyMap();
+
+    protected DataChanges changes = DataChanges.none;
+
     protected Map<ResourceLocation, V> dataMap;
     protected List<Runnable> listeners;
 
+    protected volatile long readTime;
+
     public DataStore(Gson gson, String directory, Class<V> dataClass) {
         this.gson = gson;
         this.directory = directory;
@@ -47,91 +69,232 @@ public class DataStore<V> extends ReloadListener<Map<ResourceLocation, JsonEleme
 
     protected Map<ResourceLocation, JsonElement> prepare(IResourceManager resourceManager, IProfiler profiler) {
         logger.debug("Reading data for {} data store...", directory);
-        Map<ResourceLocation, JsonElement> map = Maps.newHashMap();
+        long start = System.nanoTime();
+
+        Map<ResourceLocation, JsonElement> result = computeParallel(getResourceLocations(resourceManager),
+                (location, fullLocation) -> readResource(resourceManager, location, fullLocation));
+
+        readTime = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * @return a map of data locations, with the directory and file extension stripped, to the full location of the resource
+     */
+    protected Map<ResourceLocation, ResourceLocation> getResourceLocations(IResourceManager resourceManager) {
+        Map<ResourceLocation, ResourceLocation> result = new HashMap<>();
         int i = this.directory.length() + 1;
 
         for(ResourceLocation fullLocation : resourceManager.getAllResourceLocations(directory, rl -> rl.endsWith(".json"))) {
             String path = fullLocation.getPath();
             ResourceLocation location = new ResourceLocation(fullLocation.getNamespace(), path.substring(i, path.length() - jsonExtLength));
+            result.put(location, fullLocation);
+        }
 
-            try (
-                    IResource resource = resourceManager.getResource(fullLocation);
-                    InputStream inputStream = resource.getInputStream();
-                    Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-            ) {
-                JsonElement json;
-
-                if (dataClass.isArray()) {
-                    json = JSONUtils.fromJson(gson, reader, JsonArray.class);
-                } else {
-                    json = JSONUtils.fromJson(gson, reader, JsonElement.class);
-                }
-                if (json != null) {
-                    JsonElement duplicate = map.put(location, json);
-                    if (duplicate != null) {
-                        throw new IllegalStateException("Duplicate data file ignored with ID " + location);
-                    }
-                } else {
-                    logger.error("Couldn't load data file {} from {} as it's null or empty", location, fullLocation);
+        return result;
+    }
+
+    protected JsonElement readResource(IResourceManager resourceManager, ResourceLocation location, ResourceLocation fullLocation) {
+        try (
+                IResource resource = resourceManager.getResource(fullLocation);
+                InputStream inputStream = resource.getInputStream();
+                Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        ) {
+            JsonElement json;
+
+            if (dataClass.isArray()) {
+                json = JSONUtils.fromJson(gson, reader, JsonArray.class);
+            } else {
+                json = JSONUtils.fromJson(gson, reader, JsonElement.class);
+            }
+
+            if (json == null) {
+                logger.error("Couldn't load data file {} from {} as it's null or empty", location, fullLocation);
+            }
+
+            return json;
+        } catch (IllegalArgumentException | IOException | JsonParseException jsonparseexception) {
+            logger.error("Couldn't parse data file {} from {}", location, fullLocation, jsonparseexception);
+        }
+
+        return null;
+    }
+
+    /**
+     * Applies the given function to all entries in the given map using the shared worker pool, and blocks until all of them are done.
+     * Entries for which the function returns null are left out of the result. Runtime exceptions thrown by the function are rethrown on
+     * the calling thread.
+     */
+    protected static <K, T, R> Map<K, R> computeParallel(Map<K, T> input, BiFunction<K, T, R> function) {
+        Map<K, CompletableFuture<R>> futures = new HashMap<>(input.size());
+        input.forEach((key, value) -> futures.put(key, CompletableFuture.supplyAsync(() -> function.apply(key, value), workers)));
+
+        Map<K, R> result = new HashMap<>(input.size());
+        try {
+            futures.forEach((key, future) -> {
+                R value = future.join();
+                if (value != null) {
+                    result.put(key, value);
                 }
-            } catch (IllegalArgumentException | IOException | JsonParseException jsonparseexception) {
-                logger.error("Couldn't parse data file {} from {}", location, fullLocation, jsonparseexception);
+            });
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw e;
         }
 
-        return map;
+        return result;
     }
 
     @Override
     protected void apply(Map<ResourceLocation, JsonElement> splashList, IResourceManager resourceManager, IProfiler profiler) {
-        rawData = splashList;
+        // json trees are not kept around once parsed, the serialized form is all that is needed for syncing
+        Map<ResourceLocation, Long> previousHashes = syncHashes;
+        syncData = computeParallel(splashList, (location, json) -> json.toString());
+        syncHashes = computeParallel(syncData, (location, json) -> hash(json));
+        changes = DataChanges.between(previousHashes, syncHashes);
 
         if (Environment.get().getDist().isDedicatedServer()) {
-            PacketHandler.sendToAllPlayers(new UpdateDataPacket(directory, rawData));
+            sendDelta(PacketHandler::sendToAllPlayers, previousHashes);
         }
 
         parseData(splashList);
     }
 
-    public void sendToPlayer(ServerPlayerEntity player) {
-        PacketHandler.sendTo(new UpdateDataPacket(directory, rawData), player);
+    protected static long hash(String data) {
+        return Hashing.murmur3_128().hashString(data, StandardCharsets.UTF_8).asLong();
     }
 
-    public void loadFromPacket(Map<ResourceLocation, String> data) {
-        Map<ResourceLocation, JsonElement> splashList = data.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> {
-                            if (dataClass.isArray()) {
-                                return JSONUtils.fromJson(gson, entry.getValue(), JsonArray.class);
-                            } else {
-                                return JSONUtils.fromJson(gson, entry.getValue(), JsonElement.class);
-                            }
-                        }
-                ));
+    /**
+     * @return content hashes for all entries in this store, as they were last loaded or received
+     */
+    public Map<ResourceLocation, Long> getSyncHashes() {
+        return syncHashes;
+    }
 
-        parseData(splashList);
+    /**
+     * Sends entries that the player does not have, or has a different version of, based on the content hashes provided by the client.
+     * @param player The player to send data to
+     * @param clientHashes Content hashes for the entries currently held by the client
+     */
+    public void sendToPlayer(ServerPlayerEntity player, Map<ResourceLocation, Long> clientHashes) {
+        sendDelta(packet -> PacketHandler.sendTo(packet, player), clientHashes);
+    }
+
+    private void sendDelta(Consumer<AbstractPacket> sender, Map<ResourceLocation, Long> knownHashes) {
+        Map<ResourceLocation, String> changed = syncData.entrySet().stream()
+                .filter(entry -> !syncHashes.get(entry.getKey()).equals(knownHashes.get(entry.getKey())))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        List<ResourceLocation> removed = knownHashes.keySet().stream()
+                .filter(location -> !syncHashes.containsKey(location))
+                .collect(Collectors.toList());
+
+        if (!changed.isEmpty() || !removed.isEmpty()) {
+            UpdateDataPacket.create(directory, changed, removed).forEach(sender);
+        }
+    }
+
+    /**
+     * Applies changes received from the server on top of the data currently held by this store.
+     * @param changed Serialized entries that are new or have changed
+     * @param removed Locations of entries that have been removed
+     */
+    public void loadFromPacket(Map<ResourceLocation, String> changed, Collection<ResourceLocation> removed) {
+        Map<ResourceLocation, String> data = new HashMap<>(syncData);
+        Map<ResourceLocation, Long> hashes = new HashMap<>(syncHashes);
+
+        removed.forEach(location -> {
+            data.remove(location);
+            hashes.remove(location);
+        });
+        changed.forEach((location, json) -> {
+            data.put(location, json);
+            hashes.put(location, hash(json));
+        });
+
+        changes = DataChanges.between(syncHashes, hashes);
+        syncData = data;
+        syncHashes = hashes;
+
+        loadFromPacket(data);
+    }
+
+    /**
+     * Replaces all data in this store with data that has been cached locally by the client, entries that are out of date are then
+     * updated when the server responds to the client's hashes.
+     * @param data Serialized entries, as previously received from the server
+     */
+    public void loadFromCache(Map<ResourceLocation, String> data) {
+        Map<ResourceLocation, Long> previousHashes = syncHashes;
+        syncData = new HashMap<>(data);
+        syncHashes = syncData.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> hash(entry.getValue())));
+        changes = DataChanges.between(previousHashes, syncHashes);
+
+        loadFromPacket(syncData);
+    }
+
+    /**
+     * @return serialized entries for all data in this store, as they were last loaded or received
+     */
+    public Map<ResourceLocation, String> getSyncData() {
+        return syncData;
+    }
+
+    public void loadFromPacket(Map<ResourceLocation, String> data) {
+        long start = System.nanoTime();
+        readTime = 0;
+        dataMap = computeParallel(data, (location, json) -> deserialize(json));
+        onParsed(data.size(), System.nanoTime() - start);
     }
 
     public void parseData(Map<ResourceLocation, JsonElement> splashList) {
-        logger.info("Loaded {} {}", String.format("%3d", splashList.values().size()), directory);
-        dataMap = splashList.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> gson.fromJson(entry.getValue(), dataClass)
-                ));
+        long start = System.nanoTime();
+        dataMap = computeParallel(splashList, (location, json) -> deserialize(json));
+        onParsed(splashList.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * Deserializes a single entry from a parsed json tree, used when data is loaded from resources.
+     */
+    protected V deserialize(JsonElement json) {
+        return gson.fromJson(json, dataClass);
+    }
+
+    /**
+     * Deserializes a single entry straight from its serialized form, used for data received from the server. This skips building an
+     * intermediate json tree for the whole entry.
+     */
+    protected V deserialize(String json) {
+        return gson.fromJson(json, dataClass);
+    }
+
+    private void onParsed(int count, long parseTime) {
+        long start = System.nanoTime();
 
         processData();
 
         listeners.forEach(Runnable::run);
+
+        logger.info("Loaded {} {} ({}, read in {}ms, parsed in {}ms, applied in {}ms)", String.format("%3d", count), directory, changes,
+                TimeUnit.NANOSECONDS.toMillis(readTime), TimeUnit.NANOSECONDS.toMillis(parseTime),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
     protected void processData() {
 
     }
 
-    public Map<ResourceLocation, JsonElement> getRawData() {
-        return rawData;
+    /**
+     * Get the entries that were added, changed or removed the last time this store was loaded. Listeners may use this to only update
+     * what has changed. Anything derived from the data of other stores should listen to reloads of those stores as well, the changes of
+     * another store may be left over from an earlier load and clients are not sent stores that have not changed.
+     *
+     * @return the changes from the last load
+     */
+    public DataChanges getChanges() {
+        return changes;
     }
 
     public String getDirectory() {
@@ -0,0 +1,61 @@
+package se.mickelus.tetra.data;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ServerData;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import se.mickelus.tetra.TetraMod;
+
+@OnlyIn(Dist.CLIENT)
+public class DataSyncHandler {
+
+    private final DataCache cache;
+
+    // set when joining a server, data is not requested until the server has sent its tags
+    private boolean awaitingTags = false;
+
+    public DataSyncHandler() {
+        cache = new DataCache(Minecraft.getInstance().gameDir.toPath().resolve(TetraMod.MOD_ID).resolve("cache"));
+        DataManager.instance.onDataSynced(cache::save);
+    }
+
+    @SubscribeEvent
+    public void onLoggedIn(ClientPlayerNetworkEvent.LoggedInEvent event) {
+        ServerData serverData = Minecraft.getInstance().getCurrentServerData();
+
+        // the integrated server shares data stores with the client, so there is nothing to cache
+        if (!Minecraft.getInstance().isIntegratedServerRunning() && serverData != null) {
+            cache.setServer(serverData.serverIP);
+        } else {
+            cache.setServer(null);
+        }
+
+        awaitingTags = true;
+    }
+
+    /**
+     * Some data (e.g. item predicates) resolves tags when parsed, this fires after login once the tags of the server have been received.
+     * Cached data is only parsed and requested at this point, otherwise it would be parsed against the tags of the previous server and
+     * data that has not changed would not be sent and parsed again.
+     */
+    @SubscribeEvent
+    public void onTagsUpdated(TagsUpdatedEvent event) {
+        // tags are also updated on the integrated server thread, that's of no concern here
+        if (awaitingTags && Minecraft.getInstance().isOnExecutionThread()) {
+            awaitingTags = false;
+
+            cache.load(DataManager.instance.getDataStores());
+            DataManager.instance.reloadComplete();
+            DataManager.instance.requestData();
+        }
+    }
+
+    @SubscribeEvent
+    public void onLoggedOut(ClientPlayerNetworkEvent.LoggedOutEvent event) {
+        cache.setServer(null);
+        awaitingTags = false;
+    }
+}
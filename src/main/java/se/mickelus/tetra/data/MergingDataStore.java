@@ -1,25 +1,19 @@
 package se.mickelus.tetra.data;
 
-import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import net.minecraft.profiler.IProfiler;
 import net.minecraft.resources.IResource;
 import net.minecraft.resources.IResourceManager;
 import net.minecraft.util.JSONUtils;
 import net.minecraft.util.ResourceLocation;
-import net.minecraftforge.forgespi.Environment;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import se.mickelus.tetra.network.PacketHandler;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public abstract class MergingDataStore<V, U> extends DataStore<V> {
     private static final Logger logger = LogManager.getLogger();
@@ -33,79 +27,61 @@ public abstract class MergingDataStore<V, U> extends DataStore<V> {
     }
 
     @Override
-    protected Map<ResourceLocation, JsonElement> prepare(IResourceManager resourceManager, IProfiler profiler) {
-        logger.debug("Reading data for {} data store...", directory);
-        Map<ResourceLocation, JsonElement> map = Maps.newHashMap();
-        int i = this.directory.length() + 1;
-
-        for(ResourceLocation fullLocation : resourceManager.getAllResourceLocations(directory, rl -> rl.endsWith(".json"))) {
-            String path = fullLocation.getPath();
-            ResourceLocation location = new ResourceLocation(fullLocation.getNamespace(), path.substring(i, path.length() - jsonExtLength));
-
-            JsonArray allResources = new JsonArray();
-
-            try {
-                for (IResource resource : resourceManager.getAllResources(fullLocation)) {
-                    try (
-                            InputStream inputstream = resource.getInputStream();
-                            Reader reader = new BufferedReader(new InputStreamReader(inputstream, StandardCharsets.UTF_8));
-                    ) {
-                        JsonObject json = JSONUtils.fromJson(gson, reader, JsonObject.class);
-                        if (json != null) {
-                            allResources.add(json);
-                        } else {
-                            logger.error("Couldn't load data from {} in data pack {} as it's empty or null",
-                                    fullLocation, resource.getPackName());
-                        }
-                    } catch (RuntimeException | IOException e) {
-                        logger.error("Couldn't load data from {} in data pack {}", fullLocation, resource.getPackName(), e);
-                    } finally {
-                        IOUtils.closeQuietly(resource);
+    protected JsonElement readResource(IResourceManager resourceManager, ResourceLocation location, ResourceLocation fullLocation) {
+        JsonArray allResources = new JsonArray();
+
+        try {
+            for (IResource resource : resourceManager.getAllResources(fullLocation)) {
+                try (
+                        InputStream inputstream = resource.getInputStream();
+                        Reader reader = new BufferedReader(new InputStreamReader(inputstream, StandardCharsets.UTF_8));
+                ) {
+                    JsonObject json = JSONUtils.fromJson(gson, reader, JsonObject.class);
+                    if (json != null) {
+                        allResources.add(json);
+                    } else {
+                        logger.error("Couldn't load data from {} in data pack {} as it's empty or null",
+                                fullLocation, resource.getPackName());
                     }
+                } catch (RuntimeException | IOException e) {
+                    logger.error("Couldn't load data from {} in data pack {}", fullLocation, resource.getPackName(), e);
+                } finally {
+                    IOUtils.closeQuietly(resource);
                 }
-            } catch (IOException e) {
-                logger.error("Couldn't load data from {}", fullLocation, e);
             }
-
-            map.put(location, allResources);
+        } catch (IOException e) {
+            logger.error("Couldn't load data from {}", fullLocation, e);
         }
 
-        return map;
+        return trimReplaced(allResources);
     }
 
-    @Override
-    protected void apply(Map<ResourceLocation, JsonElement> splashList, IResourceManager resourceManager, IProfiler profiler) {
-        rawData = splashList;
-
-        if (Environment.get().getDist().isDedicatedServer()) {
-            PacketHandler.sendToAllPlayers(new UpdateDataPacket(directory, rawData));
+    /**
+     * Drops entries that are replaced by a later entry, so that they are neither deserialized nor synced to clients.
+     */
+    private static JsonArray trimReplaced(JsonArray resources) {
+        for (int i = resources.size() - 1; i > 0; i--) {
+            JsonObject json = resources.get(i).getAsJsonObject();
+            if (JSONUtils.getBoolean(json, "replace", false)) {
+                JsonArray result = new JsonArray();
+                for (int j = i; j < resources.size(); j++) {
+                    result.add(resources.get(j));
+                }
+                return result;
+            }
         }
 
-        parseData(splashList);
+        return resources;
     }
 
     @Override
-    public void loadFromPacket(Map<ResourceLocation, String> data) {
-        Map<ResourceLocation, JsonElement> splashList = data.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> JSONUtils.fromJson(gson, entry.getValue(), JsonArray.class)
-                ));
-
-        parseData(splashList);
+    protected V deserialize(JsonElement json) {
+        return mergeData(gson.fromJson(json, arrayClass));
     }
 
-    public void parseData(Map<ResourceLocation, JsonElement> splashList) {
-        logger.info("Loaded {} {}", String.format("%3d", splashList.values().size()), directory);
-        dataMap = splashList.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> mergeData(gson.fromJson(entry.getValue(), arrayClass))
-                ));
-
-        processData();
-
-        listeners.forEach(Runnable::run);
+    @Override
+    protected V deserialize(String json) {
+        return mergeData(gson.fromJson(json, arrayClass));
     }
 
     protected abstract V mergeData(U collection);
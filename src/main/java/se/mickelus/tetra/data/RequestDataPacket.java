@@ -0,0 +1,88 @@
+package se.mickelus.tetra.data;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.ResourceLocation;
+import se.mickelus.tetra.network.AbstractPacket;
+
+import java.util.*;
+
+/**
+ * Sent by the client to request data for a data store, contains the content hash for each entry that the client already has. The server
+ * responds with the entries that are missing or differ. Hashes are split over several packets to stay within the size limit for client
+ * to server packets, the last packet for a directory is flagged.
+ */
+public class RequestDataPacket extends AbstractPacket {
+
+    // rough limit for the encoded size of a single packet, client to server packets are limited to 32767 bytes
+    private static final int maxPacketSize = 30000;
+
+    private String directory;
+    private Map<ResourceLocation, Long> hashes;
+    private boolean last;
+
+    public RequestDataPacket() {}
+
+    public RequestDataPacket(String directory, Map<ResourceLocation, Long> hashes, boolean last) {
+        this.directory = directory;
+        this.hashes = hashes;
+        this.last = last;
+    }
+
+    /**
+     * Creates the packets needed to send the given hashes to the server.
+     * @param directory The directory of the data store
+     * @param hashes Content hashes for the entries currently held by the client
+     * @return A list of packets, the last of which is flagged as such
+     */
+    public static List<RequestDataPacket> create(String directory, Map<ResourceLocation, Long> hashes) {
+        List<RequestDataPacket> packets = new ArrayList<>();
+        Map<ResourceLocation, Long> current = new HashMap<>();
+        int size = 0;
+
+        for (Map.Entry<ResourceLocation, Long> entry : hashes.entrySet()) {
+            int entrySize = entry.getKey().toString().length() * 3 + 16;
+            if (size + entrySize > maxPacketSize && !current.isEmpty()) {
+                packets.add(new RequestDataPacket(directory, current, false));
+                current = new HashMap<>();
+                size = 0;
+            }
+
+            current.put(entry.getKey(), entry.getValue());
+            size += entrySize;
+        }
+
+        packets.add(new RequestDataPacket(directory, current, true));
+        return packets;
+    }
+
+    @Override
+    public void toBytes(PacketBuffer buffer) {
+        buffer.writeString(directory);
+        buffer.writeBoolean(last);
+        buffer.writeVarInt(hashes.size());
+        hashes.forEach((location, hash) -> {
+            buffer.writeResourceLocation(location);
+            buffer.writeLong(hash);
+        });
+    }
+
+    @Override
+    public void fromBytes(PacketBuffer buffer) {
+        directory = buffer.readString();
+        last = buffer.readBoolean();
+        int count = buffer.readVarInt();
+        hashes = new HashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            hashes.put(buffer.readResourceLocation(), buffer.readLong());
+        }
+    }
+
+    @Override
+    public void handle(PlayerEntity player) {
+        if (player instanceof ServerPlayerEntity) {
+            DataManager.instance.onHashesReceived((ServerPlayerEntity) player, directory, hashes, last);
+        }
+    }
+}
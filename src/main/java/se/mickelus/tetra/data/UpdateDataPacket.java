@@ -1,53 +1,149 @@
 package se.mickelus.tetra.data;
 
-import com.google.gson.JsonElement;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.ResourceLocation;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import se.mickelus.tetra.network.AbstractPacket;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
+/**
+ * Sends changed and removed entries for a data store to the client. The entries are serialized and compressed into a single payload, which
+ * is then split into chunks that fit well within the size limit for server to client packets. Chunks for a payload are always sent in
+ * order and without any other update packets in between, the client buffers them until the last chunk has been received.
+ */
 public class UpdateDataPacket extends AbstractPacket {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int chunkSize = 262144;
+
+    // chunks received so far, by directory
+    private static final Map<String, ByteArrayOutputStream> pendingChunks = new HashMap<>();
 
     private String directory;
-    private Map<ResourceLocation, String> data;
+    private int chunkIndex;
+    private int chunkCount;
+    private byte[] chunk;
 
     public UpdateDataPacket() {}
 
-    public UpdateDataPacket(String directory, Map<ResourceLocation, JsonElement> data) {
+    public UpdateDataPacket(String directory, int chunkIndex, int chunkCount, byte[] chunk) {
         this.directory = directory;
-        this.data = data.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> entry.getValue().toString()
-                ));
+        this.chunkIndex = chunkIndex;
+        this.chunkCount = chunkCount;
+        this.chunk = chunk;
+    }
+
+    /**
+     * Creates the packets needed to send the given changes to a client.
+     * @param directory The directory of the data store
+     * @param changed Serialized entries that are new or have changed
+     * @param removed Locations of entries that have been removed
+     * @return A list of packets, to be sent in order
+     */
+    public static List<UpdateDataPacket> create(String directory, Map<ResourceLocation, String> changed, Collection<ResourceLocation> removed) {
+        byte[] payload;
+        try {
+            payload = encode(changed, removed);
+        } catch (IOException e) {
+            logger.error("Failed to encode {} data for syncing", directory, e);
+            return Collections.emptyList();
+        }
+
+        int chunkCount = Math.max(1, (payload.length + chunkSize - 1) / chunkSize);
+        List<UpdateDataPacket> packets = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            packets.add(new UpdateDataPacket(directory, i, chunkCount,
+                    Arrays.copyOfRange(payload, i * chunkSize, Math.min(payload.length, (i + 1) * chunkSize))));
+        }
+
+        return packets;
+    }
+
+    private static byte[] encode(Map<ResourceLocation, String> changed, Collection<ResourceLocation> removed) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(byteStream))) {
+            out.writeInt(changed.size());
+            for (Map.Entry<ResourceLocation, String> entry : changed.entrySet()) {
+                byte[] data = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                out.writeUTF(entry.getKey().toString());
+                out.writeInt(data.length);
+                out.write(data);
+            }
+
+            out.writeInt(removed.size());
+            for (ResourceLocation location : removed) {
+                out.writeUTF(location.toString());
+            }
+        }
+
+        return byteStream.toByteArray();
+    }
+
+    private void decodeAndApply(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+            int changedCount = in.readInt();
+            Map<ResourceLocation, String> changed = new HashMap<>(changedCount);
+            for (int i = 0; i < changedCount; i++) {
+                ResourceLocation location = new ResourceLocation(in.readUTF());
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                changed.put(location, new String(data, StandardCharsets.UTF_8));
+            }
+
+            int removedCount = in.readInt();
+            List<ResourceLocation> removed = new ArrayList<>(removedCount);
+            for (int i = 0; i < removedCount; i++) {
+                removed.add(new ResourceLocation(in.readUTF()));
+            }
+
+            DataManager.instance.onDataRecieved(directory, changed, removed);
+        }
     }
 
     @Override
     public void toBytes(PacketBuffer buffer) {
         buffer.writeString(directory);
-        buffer.writeInt(data.size());
-        data.forEach((resourceLocation, data) -> {
-            buffer.writeResourceLocation(resourceLocation);
-            buffer.writeString(data);
-        });
+        buffer.writeVarInt(chunkIndex);
+        buffer.writeVarInt(chunkCount);
+        buffer.writeByteArray(chunk);
     }
 
     @Override
     public void fromBytes(PacketBuffer buffer) {
         directory = buffer.readString();
-        int count = buffer.readInt();
-        data = new HashMap<>();
-        for (int i = 0; i < count; i++) {
-            data.put(buffer.readResourceLocation(), buffer.readString());
-        }
+        chunkIndex = buffer.readVarInt();
+        chunkCount = buffer.readVarInt();
+        chunk = buffer.readByteArray();
     }
 
     @Override
     public void handle(PlayerEntity player) {
-        DataManager.instance.onDataRecieved(directory, data);
+        if (chunkIndex == 0) {
+            pendingChunks.put(directory, new ByteArrayOutputStream());
+        }
+
+        ByteArrayOutputStream chunks = pendingChunks.get(directory);
+        if (chunks == null) {
+            logger.warn("Received {} data chunk {}/{} without the preceding chunks, ignoring", directory, chunkIndex + 1, chunkCount);
+            return;
+        }
+
+        chunks.write(chunk, 0, chunk.length);
+
+        if (chunkIndex == chunkCount - 1) {
+            pendingChunks.remove(directory);
+            try {
+                decodeAndApply(chunks.toByteArray());
+            } catch (IOException e) {
+                logger.error("Failed to decode synced {} data", directory, e);
+            }
+        }
     }
 }
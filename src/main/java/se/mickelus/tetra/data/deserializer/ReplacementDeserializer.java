@@ -29,7 +29,13 @@ public class ReplacementDeserializer implements JsonDeserializer<ReplacementDefi
         JsonObject jsonObject = element.getAsJsonObject();
 
         try {
-            replacement.predicate = ItemPredicate.deserialize(JSONUtils.getJsonObject(jsonObject, "predicate"));
+            JsonObject predicateJson = JSONUtils.getJsonObject(jsonObject, "predicate");
+            replacement.predicate = ItemPredicate.deserialize(predicateJson);
+
+            replacement.itemOnlyPredicate = predicateJson.size() == 1 && (predicateJson.has("item") || predicateJson.has("tag"));
+            if (replacement.itemOnlyPredicate && predicateJson.has("item")) {
+                replacement.predicateItem = JSONUtils.getItem(predicateJson, "item");
+            }
         } catch (JsonSyntaxException e) {
             // todo: debug log here
 //                System.out.println(String.format("Skipping modular replacement definition due to faulty predicate: %s", JSONUtils.getJsonObject(jsonObject, "predicate").toString()));
@@ -14,6 +14,8 @@ import net.minecraft.world.gen.ChunkGenerator;
 import net.minecraft.world.gen.GenerationSettings;
 import net.minecraft.world.gen.GenerationStage;
 import net.minecraft.world.gen.WorldGenRegion;
+import net.minecraft.world.gen.feature.ConfiguredFeature;
+import net.minecraft.world.gen.feature.DecoratedFeatureConfig;
 import net.minecraft.world.gen.feature.Feature;
 import net.minecraft.world.gen.feature.template.IntegrityProcessor;
 import net.minecraft.world.gen.feature.template.PlacementSettings;
@@ -32,6 +34,7 @@ import net.minecraftforge.registries.ObjectHolder;
 import se.mickelus.tetra.ConfigHandler;
 import se.mickelus.tetra.RotationHelper;
 import se.mickelus.tetra.TetraMod;
+import se.mickelus.tetra.data.DataChanges;
 import se.mickelus.tetra.data.DataManager;
 import se.mickelus.tetra.generation.processing.ForgedContainerProcessor;
 import se.mickelus.tetra.generation.processing.ForgedCrateProcessor;
@@ -40,8 +43,10 @@ import se.mickelus.tetra.generation.processing.TransferUnitProcessor;
 import se.mickelus.tetra.util.ItemHandlerWrapper;
 
 import java.util.Arrays;
+import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public class FeatureEntry extends Feature<FeatureReference> {
@@ -66,12 +71,16 @@ public class FeatureEntry extends Feature<FeatureReference> {
     }
 
     private void addToBiomes() {
+        DataChanges changes = DataManager.featureData.getChanges();
+
         for (Biome biome : ForgeRegistries.BIOMES) {
             biome.getFeatures(GenerationStage.Decoration.UNDERGROUND_STRUCTURES)
-                    .removeIf(configuredFeature -> configuredFeature.feature.equals(this));
+                    .removeIf(configuredFeature -> isStaleFeature(configuredFeature, changes));
         }
 
-        DataManager.featureData.getData().values().stream()
+        Stream.concat(changes.added.stream(), changes.changed.stream())
+                .map(DataManager.featureData::getData)
+                .filter(Objects::nonNull)
                 .filter(params -> params.biomes.length > 0)
                 .forEach(params -> {
                     StreamSupport.stream(ForgeRegistries.BIOMES.spliterator(), false)
@@ -90,6 +99,21 @@ public class FeatureEntry extends Feature<FeatureReference> {
         });
     }
 
+    /**
+     * Features are added to biomes wrapped in a decorated feature, only those that reference features that were changed or removed
+     * are stale.
+     */
+    private boolean isStaleFeature(ConfiguredFeature<?, ?> configuredFeature, DataChanges changes) {
+        if (configuredFeature.config instanceof DecoratedFeatureConfig) {
+            ConfiguredFeature<?, ?> innerFeature = ((DecoratedFeatureConfig) configuredFeature.config).feature;
+            return innerFeature.feature.equals(this)
+                    && innerFeature.config instanceof FeatureReference
+                    && (changes.changed.contains(((FeatureReference) innerFeature.config).location)
+                    || changes.removed.contains(((FeatureReference) innerFeature.config).location));
+        }
+        return false;
+    }
+
     @Override
     public boolean place(IWorld world, ChunkGenerator<? extends GenerationSettings> generator, Random rand, BlockPos pos,
             FeatureReference ref) {
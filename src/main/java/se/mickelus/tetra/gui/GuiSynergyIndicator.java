@@ -91,8 +91,8 @@ public class GuiSynergyIndicator extends GuiElement {
                 || data.attackSpeed != 0 || data.attackSpeedMultiplier != 1
                 || data.durability != 0 || data.durabilityMultiplier != 1
                 || data.integrity != 0 || data.integrityMultiplier != 1
-                || !data.effects.valueMap.isEmpty() || !data.effects.efficiencyMap.isEmpty()
-                || !data.capabilities.valueMap.isEmpty() || !data.capabilities.efficiencyMap.isEmpty()
+                || !data.effects.isEmpty()
+                || !data.capabilities.isEmpty()
                 || data.magicCapacity != 0;
     }
 
@@ -157,16 +157,16 @@ public class GuiSynergyIndicator extends GuiElement {
             result.add(getValueMultiplier(data.integrityMultiplier) + I18n.format("tetra.stats.integrity"));
         }
 
-        data.effects.valueMap.forEach((itemEffect, level) ->
+        data.effects.forEachLevel((itemEffect, level) ->
                 result.add(getValueInteger(level, 0) + I18n.format("tetra.stats." + itemEffect) + " " + I18n.format("tetra.stats.level_suffix")));
 
-        data.effects.efficiencyMap.forEach((itemEffect, efficiency) ->
+        data.effects.forEachEfficiency((itemEffect, efficiency) ->
                 result.add(getValueDouble(efficiency, 0) + I18n.format("tetra.stats." + itemEffect) + " " + I18n.format("tetra.stats.strength_suffix")));
 
-        data.capabilities.valueMap.forEach((capability, level) ->
+        data.capabilities.forEachLevel((capability, level) ->
                 result.add(getValueInteger(level, 0) + I18n.format("tetra.capability." + capability) + " " + I18n.format("tetra.stats.tier_suffix")));
 
-        data.capabilities.efficiencyMap.forEach((capability, efficiency) ->
+        data.capabilities.forEachEfficiency((capability, efficiency) ->
                 result.add(getValueDouble(efficiency, 0) + I18n.format("tetra.capability." + capability) + " " + I18n.format("tetra.stats.efficiency_suffix")));
 
         if (data.magicCapacity != 0) {
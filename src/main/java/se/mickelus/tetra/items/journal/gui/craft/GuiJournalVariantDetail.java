@@ -22,7 +22,6 @@ import se.mickelus.tetra.module.schema.SchemaType;
 import se.mickelus.tetra.module.schema.UpgradeSchema;
 
 import java.util.Arrays;
-import java.util.Map;
 
 public class GuiJournalVariantDetail extends GuiElement {
 
@@ -129,9 +128,9 @@ public class GuiJournalVariantDetail extends GuiElement {
 
             requiredCapabilities.clearChildren();
             int i = 0;
-            for (Map.Entry<Capability, Integer> entry: baseOutcome.capabilities.valueMap.entrySet()) {
-                GuiCapabilityRequirement requirement = new GuiCapabilityRequirement(20, i * 18, entry.getKey());
-                requirement.updateRequirement(entry.getValue(), capabilityLevels[entry.getKey().ordinal()]);
+            for (Capability capability: baseOutcome.capabilities.getValues()) {
+                GuiCapabilityRequirement requirement = new GuiCapabilityRequirement(20, i * 18, capability);
+                requirement.updateRequirement(baseOutcome.capabilities.getLevel(capability), capabilityLevels[capability.ordinal()]);
                 requiredCapabilities.addChild(requirement);
 
                 i++;
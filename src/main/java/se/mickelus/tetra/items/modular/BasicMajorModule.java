@@ -16,17 +16,17 @@ public class BasicMajorModule extends ItemModuleMajor {
     public BasicMajorModule(ResourceLocation identifier, ModuleData data) {
         super(data.slots[0], identifier.getPath());
 
-        variantData = data.variants;
+        setVariantData(data.variants);
 
         renderLayer = data.renderLayer;
 
         if (data.improvements.length > 0) {
-            improvements = Arrays.stream(data.improvements)
+            setImprovements(Arrays.stream(data.improvements)
                     .map(key -> DataManager.improvementData.getData(key))
                     .filter(Objects::nonNull)
                     .flatMap(Arrays::stream)
                     .filter(Filter.distinct(improvement -> improvement.key + ":" + improvement.level))
-                    .toArray(ImprovementData[]::new);
+                    .toArray(ImprovementData[]::new));
 
             settleMax = Arrays.stream(improvements)
                     .filter(improvement -> improvement.key.equals(settleImprovement))
@@ -38,9 +38,9 @@ public class BasicMajorModule extends ItemModuleMajor {
         if (data.tweakKey != null) {
             TweakData[] tweaks = DataManager.tweakData.getData(data.tweakKey);
             if (tweaks != null) {
-                this.tweaks = tweaks;
+                setTweaks(tweaks);
             } else {
-                this.tweaks = new TweakData[0];
+                setTweaks(new TweakData[0]);
             }
         }
     }
@@ -0,0 +1,101 @@
+package se.mickelus.tetra.items.modular;
+
+import net.minecraftforge.common.ToolType;
+import se.mickelus.tetra.capabilities.Capability;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Precomputed harvest stats for a modular itemstack: the tool types it provides, the harvest level and efficiency for each of them and the
+ * base destroy speed. Resolved from an item snapshot, and therefore cached per item identifier like the snapshot. Broken state is not part
+ * of the profile and has to be checked separately.
+ */
+public class ItemHarvestProfile {
+    private static final Capability[] capabilityValues = Capability.values();
+    private static final ToolType[] capabilityToolTypes = new ToolType[capabilityValues.length];
+    private static final Map<ToolType, Capability> toolTypeCapabilities = new IdentityHashMap<>();
+
+    static {
+        for (Capability capability : capabilityValues) {
+            capabilityToolTypes[capability.ordinal()] = ToolType.get(capability.toString());
+            toolTypeCapabilities.put(capabilityToolTypes[capability.ordinal()], capability);
+        }
+    }
+
+    /**
+     * Tool types provided by the item, one for each capability.
+     */
+    public final Set<ToolType> toolTypes;
+    private final ToolType[] toolTypeArray;
+
+    private final int[] harvestLevels;
+    private final float[] efficiencies;
+
+    /**
+     * The destroy speed of the item before tool efficiency is applied.
+     */
+    public final float baseSpeed;
+
+    public ItemHarvestProfile(ItemModularSnapshot snapshot, double speedModifier) {
+        Set<ToolType> toolTypes = new HashSet<>();
+        for (Capability capability : snapshot.capabilities) {
+            toolTypes.add(capabilityToolTypes[capability.ordinal()]);
+        }
+        this.toolTypes = Collections.unmodifiableSet(toolTypes);
+        toolTypeArray = toolTypes.toArray(new ToolType[0]);
+
+        harvestLevels = new int[capabilityValues.length];
+        efficiencies = new float[capabilityValues.length];
+        for (Capability capability : capabilityValues) {
+            // todo: change tool capabilities to be zero indexed to align with vanilla
+            int capabilityLevel = snapshot.getCapabilityLevel(capability);
+            harvestLevels[capability.ordinal()] = capabilityLevel > 0 ? capabilityLevel - 1 : -1;
+            efficiencies[capability.ordinal()] = snapshot.getCapabilityEfficiency(capability);
+        }
+
+        baseSpeed = (float) (4 + speedModifier);
+    }
+
+    /**
+     * @param toolType A tool type, may be null
+     * @return the vanilla harvest level for the given tool type, or -1 if the tool type is not provided
+     */
+    public int getHarvestLevel(ToolType toolType) {
+        Capability capability = toolTypeCapabilities.get(toolType);
+        if (capability != null) {
+            return harvestLevels[capability.ordinal()];
+        }
+        return -1;
+    }
+
+    /**
+     * @param toolType A tool type, may be null
+     * @return the efficiency for the given tool type, or -1 if the tool type does not map to a capability
+     */
+    public float getEfficiency(ToolType toolType) {
+        Capability capability = toolTypeCapabilities.get(toolType);
+        if (capability != null) {
+            return efficiencies[capability.ordinal()];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the highest efficiency among the tool types provided by the item that match the given predicate.
+     * @param predicate A predicate, e.g. checking if the tool type is effective against a block
+     * @return the highest efficiency, or 0 if no tool type matches
+     */
+    public float getHighestEfficiency(Predicate<ToolType> predicate) {
+        float result = 0;
+        boolean found = false;
+        for (ToolType toolType : toolTypeArray) {
+            if (predicate.test(toolType)) {
+                float efficiency = getEfficiency(toolType);
+                result = found ? Math.max(result, efficiency) : efficiency;
+                found = true;
+            }
+        }
+        return result;
+    }
+}
@@ -1,5 +1,7 @@
 package se.mickelus.tetra.items.modular;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.resources.I18n;
@@ -45,9 +47,11 @@ import se.mickelus.tetra.module.ItemEffect;
 import se.mickelus.tetra.module.ItemModule;
 import se.mickelus.tetra.module.ItemModuleMajor;
 import se.mickelus.tetra.module.ItemUpgradeRegistry;
+import se.mickelus.tetra.module.ModuleRegistry;
 import se.mickelus.tetra.module.data.EnchantmentMapping;
 import se.mickelus.tetra.module.data.ImprovementData;
 import se.mickelus.tetra.module.data.ModuleModel;
+import se.mickelus.tetra.module.data.ModuleVariantData;
 import se.mickelus.tetra.module.data.SynergyData;
 import se.mickelus.tetra.module.improvement.DestabilizationEffect;
 import se.mickelus.tetra.module.improvement.HonePacket;
@@ -57,6 +61,7 @@ import se.mickelus.tetra.util.CastOptional;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -83,9 +88,42 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
     protected int baseIntegrity = 0;
 
     protected SynergyData[] synergies = new SynergyData[0];
+    private SynergyMatcher synergyMatcher = SynergyMatcher.empty;
+
+    private final Cache<String, ItemModularSnapshot> snapshotCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .build();
 
     public ItemModular(Properties properties) {
         super(properties);
+
+        ModuleRegistry.instance.onReload(this::clearSnapshotCache);
+    }
+
+    /**
+     * Returns the resolved modules and aggregated stats for the given itemstack. Snapshots are cached by the item identifier, stacks
+     * without an identifier (e.g. loot, or items given through commands) are cached by the content of their tag.
+     * @param itemStack A modular itemstack of this item
+     * @return a snapshot of the current module setup of the itemstack
+     */
+    public ItemModularSnapshot getSnapshot(ItemStack itemStack) {
+        String cacheKey = getIdentifier(itemStack);
+        if (cacheKey.isEmpty()) {
+            cacheKey = NBTHelper.getTag(itemStack).toString();
+        }
+
+        ItemModularSnapshot snapshot = snapshotCache.getIfPresent(cacheKey);
+        if (snapshot == null) {
+            snapshot = new ItemModularSnapshot(this, itemStack);
+            snapshotCache.put(cacheKey, snapshot);
+        }
+
+        return snapshot;
+    }
+
+    public void clearSnapshotCache() {
+        snapshotCache.invalidateAll();
     }
 
     public String getModelCacheKey(ItemStack itemStack, LivingEntity entity) {
@@ -96,78 +134,39 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
 
     @Override
     public int getMaxDamage(ItemStack stack) {
-        return (int) ((getAllModules(stack).stream()
-                .map(itemModule -> itemModule.getDurability(stack))
-                .reduce(0, Integer::sum) + baseDurability)
-                * getDurabilityMultiplier(stack));
+        return getSnapshot(stack).maxDamage;
     }
 
     public float getDurabilityMultiplier(ItemStack itemStack) {
-        return getAllModules(itemStack).stream()
-                .map(itemModule -> itemModule.getDurabilityMultiplier(itemStack))
-                .reduce(1f, (a, b) -> a * b);
+        return getSnapshot(itemStack).durabilityMultiplier;
     }
 
     public static int getIntegrityGain(ItemStack itemStack) {
         if (itemStack.getItem() instanceof ItemModular) {
-            return ((ItemModular) itemStack.getItem()).getAllModules(itemStack).stream()
-                    .map(module -> module.getIntegrityGain(itemStack))
-                    .reduce(0, Integer::sum);
+            return ((ItemModular) itemStack.getItem()).getSnapshot(itemStack).integrityGain;
         }
         return 0;
     }
 
     public static int getIntegrityCost(ItemStack itemStack) {
         if (itemStack.getItem() instanceof ItemModular) {
-            return ((ItemModular) itemStack.getItem()).getAllModules(itemStack).stream()
-                    .map(module -> module.getIntegrityCost(itemStack))
-                    .reduce(0, Integer::sum);
+            return ((ItemModular) itemStack.getItem()).getSnapshot(itemStack).integrityCost;
         }
         return 0;
     }
 
     protected Collection<ItemModule> getAllModules(ItemStack stack) {
-        CompoundNBT stackTag = NBTHelper.getTag(stack);
-
-        if (stackTag != null) {
-            return Stream.concat(Arrays.stream(majorModuleKeys),Arrays.stream(minorModuleKeys))
-                    .map(stackTag::getString)
-                    .map(ItemUpgradeRegistry.instance::getModule)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-        }
-
-        return Collections.emptyList();
+        return getSnapshot(stack).getModules();
     }
 
     @Override
     public ItemModuleMajor[] getMajorModules(ItemStack itemStack) {
-        ItemModuleMajor[] modules = new ItemModuleMajor[majorModuleKeys.length];
-        CompoundNBT stackTag = NBTHelper.getTag(itemStack);
-
-        for (int i = 0; i < majorModuleKeys.length; i++) {
-            String moduleName = stackTag.getString(majorModuleKeys[i]);
-            ItemModule module = ItemUpgradeRegistry.instance.getModule(moduleName);
-            if (module instanceof ItemModuleMajor) {
-                modules[i] = (ItemModuleMajor) module;
-            }
-        }
-
-        return modules;
+        return getSnapshot(itemStack).majorModules.clone();
     }
 
     @Override
     public ItemModule[] getMinorModules(ItemStack itemStack) {
-        ItemModule[] modules = new ItemModule[minorModuleKeys.length];
-        CompoundNBT stackTag = NBTHelper.getTag(itemStack);
-
-        for (int i = 0; i < minorModuleKeys.length; i++) {
-            String moduleName = stackTag.getString(minorModuleKeys[i]);
-            ItemModule module = ItemUpgradeRegistry.instance.getModule(moduleName);
-            modules[i] = module;
-        }
-
-        return modules;
+        return getSnapshot(itemStack).minorModules.clone();
     }
 
     @Override
@@ -219,8 +218,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
     }
 
     public boolean hasModule(ItemStack itemStack, ItemModule module) {
-        return getAllModules(itemStack).stream()
-            .anyMatch(module::equals);
+        return ArrayUtils.contains(getSnapshot(itemStack).modules, module);
     }
 
     /**
@@ -236,6 +234,8 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
         CompoundNBT tag = NBTHelper.getTag(itemStack);
         tag.putString(slot, module);
         tag.putString(moduleVariantKey, moduleVariant);
+
+        updateIdentifier(itemStack);
     }
 
     public ItemModule getModuleFromSlot(ItemStack itemStack, String slot) {
@@ -803,17 +803,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return -1;
         }
 
-        int base = getAllModules(itemStack).stream()
-                .map(module -> module.getCapabilityLevel(itemStack, capability))
-                .max(Integer::compare)
-                .orElse(-1);
-
-        int synergyBonus = Arrays.stream(getSynergyData(itemStack))
-                .map(synergyData -> synergyData.capabilities)
-                .mapToInt(capabilityData -> capabilityData.getLevel(capability))
-                .sum();
-
-        return base + synergyBonus;
+        return getSnapshot(itemStack).getCapabilityLevel(capability);
     }
 
     public float getCapabilityEfficiency(ItemStack itemStack, ToolType toolType) {
@@ -836,31 +826,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return 0;
         }
 
-        if (getCapabilityLevel(itemStack, capability) <= 0) {
-            return 0;
-        }
-
-        int highestLevel = getAllModules(itemStack).stream()
-                .map(module -> module.getCapabilityLevel(itemStack, capability))
-                .max(Integer::compare)
-                .orElse(-1);
-
-        // grabs the highest efficiency from modules that also provide a capability level (from the module(s) that have the highest capability level
-        // adds the efficiency of all modules that have 0 capability level
-        float efficiency = getAllModules(itemStack).stream()
-                .filter(module -> module.getCapabilityLevel(itemStack, capability) >= highestLevel)
-                .map(module -> module.getCapabilityEfficiency(itemStack, capability))
-                .max(Float::compare)
-                .orElse(1f)
-                + (float) getAllModules(itemStack).stream()
-                .filter(module -> module.getCapabilityLevel(itemStack, capability) == 0)
-                .mapToDouble(module -> module.getCapabilityEfficiency(itemStack, capability))
-                .sum();
-
-        return Math.max(0, efficiency + (float) Arrays.stream(getSynergyData(itemStack))
-                .map(synergyData -> synergyData.capabilities)
-                .mapToDouble(capabilityData -> capabilityData.getEfficiency(capability))
-                .sum());
+        return getSnapshot(itemStack).getCapabilityEfficiency(capability);
     }
 
     @Override
@@ -869,9 +835,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return Collections.emptySet();
         }
 
-        return getAllModules(itemStack).stream()
-                .flatMap(module -> ((Set<Capability>)module.getCapabilities(itemStack)).stream())
-                .collect(Collectors.toSet());
+        return getSnapshot(itemStack).capabilities;
     }
 
     /**
@@ -913,9 +877,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return -1;
         }
 
-        return getAllModules(itemStack).stream()
-                .mapToInt(module -> module.getEffectLevel(itemStack, effect))
-                .sum();
+        return getSnapshot(itemStack).getEffectLevel(effect);
     }
 
     public double getEffectEfficiency(ItemStack itemStack, ItemEffect effect) {
@@ -923,9 +885,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return 0;
         }
 
-        return getAllModules(itemStack).stream()
-                .mapToDouble(module -> module.getEffectEfficiency(itemStack, effect))
-                .sum();
+        return getSnapshot(itemStack).getEffectEfficiency(effect);
     }
 
     public Collection<ItemEffect> getEffects(ItemStack itemStack) {
@@ -933,16 +893,29 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return Collections.emptyList();
         }
 
-        return getAllModules(itemStack).stream()
-                .flatMap(module -> ((Collection<ItemEffect>)module.getEffects(itemStack)).stream())
-                .distinct()
-                .collect(Collectors.toSet());
+        return getSnapshot(itemStack).effects;
+    }
+
+    /**
+     * Cheap check for hot paths such as event handlers, that should only do something if the item has any of a few effects. Effect
+     * levels and efficiencies can then be read from the returned snapshot, instead of resolving the item for each effect.
+     * @param itemStack A modular itemstack of this item
+     * @param effectMask A mask built using {@link ItemModularSnapshot#getEffectMask(ItemEffect...)}
+     * @return the snapshot of the itemstack if it has any of the effects in the mask and isn't broken, otherwise null
+     */
+    @Nullable
+    public ItemModularSnapshot getEffectSnapshot(ItemStack itemStack, long[] effectMask) {
+        ItemModularSnapshot snapshot = getSnapshot(itemStack);
+        if (snapshot.hasAnyEffect(effectMask) && !isBroken(itemStack.getDamage(), snapshot.maxDamage)) {
+            return snapshot;
+        }
 
+        return null;
     }
 
     @Override
     public boolean hasEffect(ItemStack itemStack) {
-        return Arrays.stream(getImprovements(itemStack))
+        return Arrays.stream(getSnapshot(itemStack).improvements)
                 .anyMatch(improvement -> improvement.enchantment);
     }
 
@@ -952,10 +925,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
     }
 
     public ImprovementData[] getImprovements(ItemStack itemStack) {
-        return Arrays.stream(getMajorModules(itemStack))
-                .filter(Objects::nonNull)
-                .flatMap(module -> Arrays.stream(module.getImprovements(itemStack)))
-                .toArray(ImprovementData[]::new);
+        return getSnapshot(itemStack).improvements.clone();
     }
 
     protected String getDisplayNamePrefixes(ItemStack itemStack) {
@@ -1006,109 +976,27 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
     }
 
     public SynergyData[] getSynergyData(ItemStack itemStack) {
-        if (synergies.length > 0) {
-            ItemModule[] modules = getAllModules(itemStack).stream()
-                    .sorted(Comparator.comparing(ItemModule::getUnlocalizedName))
-                    .toArray(ItemModule[]::new);
-
-            String[] variantKeys = getAllModules(itemStack).stream()
-                    .map(module -> module.getVariantData(itemStack))
-                    .map(data -> data.key)
-                    .sorted()
-                    .toArray(String[]::new);
-
-            String[] improvements = Arrays.stream(getMajorModules(itemStack))
-                    .filter(Objects::nonNull)
-                    .map(module -> module.getImprovements(itemStack))
-                    .flatMap(Arrays::stream)
-                    .map(data -> data.key)
-                    .sorted()
-                    .toArray(String[]::new);
-
-            return Arrays.stream(synergies)
-                    .filter(synergy -> hasVariantSynergy(synergy, variantKeys) || hasModuleSynergy(itemStack, synergy, modules))
-                    .filter(synergy -> synergy.improvements.length == 0 || hasImprovementSynergy(synergy, improvements))
-                    .toArray(SynergyData[]::new);
-        }
-        return new SynergyData[0];
-    }
-
-    protected boolean hasImprovementSynergy(SynergyData synergy, String[] improvements) {
-        int improvementMatches = 0;
-        for (String improvement : improvements) {
-            if (improvementMatches == synergy.moduleVariants.length) {
-                break;
-            }
-
-            if (improvement.equals(synergy.moduleVariants[improvementMatches])) {
-                improvementMatches++;
-            }
-        }
-
-        return synergy.moduleVariants.length > 0 && improvementMatches == synergy.moduleVariants.length;
+        return getSnapshot(itemStack).synergies.clone();
     }
 
-    protected boolean hasVariantSynergy(SynergyData synergy, String[] variantKeys) {
-        int variantMatches = 0;
-        for (String variantKey : variantKeys) {
-            if (variantMatches == synergy.moduleVariants.length) {
-                break;
-            }
-
-            if (variantKey.equals(synergy.moduleVariants[variantMatches])) {
-                variantMatches++;
-            }
-        }
-
-        return synergy.moduleVariants.length > 0 && variantMatches == synergy.moduleVariants.length;
+    /**
+     * Finds the synergies that apply for the given set of modules and improvements, used when resolving item snapshots.
+     * @param itemModules All modules present on the itemstack
+     * @param variants The variant of each module, indexed the same way as the modules array
+     * @param itemImprovements All improvements present on the itemstack
+     * @return An array of matching synergies
+     */
+    protected SynergyData[] findSynergies(ItemModule[] itemModules, ModuleVariantData[] variants, ImprovementData[] itemImprovements) {
+        return synergyMatcher.match(itemModules, variants, itemImprovements);
     }
 
-    protected boolean hasModuleSynergy(ItemStack itemStack, SynergyData synergy, ItemModule[] modules) {
-        int moduleMatches = 0;
-        String variant = null;
-
-        if (synergy.sameVariant) {
-            for (ItemModule module : modules) {
-                if (moduleMatches == synergy.modules.length) {
-                    break;
-                }
-
-                if (module.getUnlocalizedName().equals(synergy.modules[moduleMatches])) {
-                    if (synergy.sameVariant) {
-                        if (variant == null) {
-                            variant = module.getVariantData(itemStack).key;
-                        }
-
-                        if (variant.equals(module.getVariantData(itemStack).key)) {
-                            moduleMatches++;
-                        }
-                    } else {
-                        moduleMatches++;
-                    }
-                }
-            }
-        } else {
-            for (ItemModule module : modules) {
-                if (moduleMatches == synergy.modules.length) {
-                    break;
-                }
-
-                if (module.getUnlocalizedName().equals(synergy.modules[moduleMatches])) {
-                    if (synergy.sameVariant) {
-                        if (variant == null) {
-                            variant = module.getVariantData(itemStack).key;
-                        }
-
-                        if (variant.equals(module.getVariantData(itemStack).key)) {
-                            moduleMatches++;
-                        }
-                    } else {
-                        moduleMatches++;
-                    }
-                }
-            }
-        }
-
-        return synergy.modules.length > 0 && moduleMatches == synergy.modules.length;
+    /**
+     * Replaces the synergies available for this item, compiles them into a matcher and clears cached snapshots.
+     * @param synergies All synergies that may apply for this item
+     */
+    protected void setSynergies(SynergyData[] synergies) {
+        this.synergies = synergies;
+        synergyMatcher = new SynergyMatcher(synergies);
+        clearSnapshotCache();
     }
 }
@@ -1,6 +1,10 @@
 package se.mickelus.tetra.items.modular;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
@@ -51,7 +55,8 @@ import se.mickelus.tetra.util.CastOptional;
 
 import javax.annotation.Nullable;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class ItemModularHandheld extends ItemModular {
 
@@ -86,6 +91,10 @@ public class ItemModularHandheld extends ItemModular {
     // copy of hardcoded values in SwordItem, blocks that the sword explicitly state it can efficiently HARVEST
     private static final Set<Block> cuttingHarvestBlocks = Sets.newHashSet(Blocks.COBWEB);
 
+    // memo of the effective tool for each blockstate, depends on tags and is therefore cleared when block tags are reloaded
+    private static final Map<BlockState, Optional<ToolType>> effectiveToolCache = new ConcurrentHashMap<>();
+    private static volatile int effectiveToolTagGeneration = -1;
+
     private static final ResourceLocation nailedTag = new ResourceLocation("tetra:nailed");
 
     protected double speedBase = -2.4d;
@@ -127,6 +136,19 @@ public class ItemModularHandheld extends ItemModular {
     // if the blocking level exceeds this value the item has an infinite blocking duration
     public static final int blockingDurationLimit = 16;
 
+    // attribute modifiers are requested every tick for held items, computed modifiers are cached per item identifier, slot and
+    // broken state. Shared between all handheld items so that the hit rate can be reported through the dev command
+    private static final Cache<AttributeCacheKey, Multimap<String, AttributeModifier>> attributeCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    private final Cache<String, ItemHarvestProfile> harvestProfileCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(5, TimeUnit.MINUTES)
+            .build();
+
     public ItemModularHandheld(Properties properties) {
         super(properties);
     }
@@ -793,8 +815,57 @@ public class ItemModularHandheld extends ItemModular {
         return NBTHelper.getTag(itemStack).getFloat(cooledStrengthKey);
     }
 
+    /**
+     * Returns cached attribute modifiers for the given stack and slot, the returned multimap is immutable. Subclasses that wish to alter
+     * the modifiers should override {@link #computeAttributeModifiers(EquipmentSlotType, ItemStack)} instead.
+     */
     @Override
     public Multimap<String, AttributeModifier> getAttributeModifiers(EquipmentSlotType slot, ItemStack itemStack) {
+        String identifier = getIdentifier(itemStack);
+        if (identifier.isEmpty()) {
+            return ImmutableMultimap.copyOf(computeAttributeModifiers(slot, itemStack));
+        }
+
+        AttributeCacheKey key = new AttributeCacheKey(this, identifier, slot, isBroken(itemStack));
+        Multimap<String, AttributeModifier> modifiers = attributeCache.getIfPresent(key);
+        if (modifiers == null) {
+            modifiers = ImmutableMultimap.copyOf(computeAttributeModifiers(slot, itemStack));
+            attributeCache.put(key, modifiers);
+        }
+
+        return modifiers;
+    }
+
+    public static CacheStats getAttributeCacheStats() {
+        return attributeCache.stats();
+    }
+
+    @Override
+    public void clearSnapshotCache() {
+        super.clearSnapshotCache();
+        attributeCache.invalidateAll();
+        harvestProfileCache.invalidateAll();
+    }
+
+    /**
+     * Returns the harvest profile for the given stack, cached per item identifier. Broken state is not taken into account.
+     */
+    public ItemHarvestProfile getHarvestProfile(ItemStack itemStack) {
+        String identifier = getIdentifier(itemStack);
+        if (identifier.isEmpty()) {
+            return new ItemHarvestProfile(getSnapshot(itemStack), getSpeedModifier(itemStack));
+        }
+
+        ItemHarvestProfile profile = harvestProfileCache.getIfPresent(identifier);
+        if (profile == null) {
+            profile = new ItemHarvestProfile(getSnapshot(itemStack), getSpeedModifier(itemStack));
+            harvestProfileCache.put(identifier, profile);
+        }
+
+        return profile;
+    }
+
+    protected Multimap<String, AttributeModifier> computeAttributeModifiers(EquipmentSlotType slot, ItemStack itemStack) {
         Multimap<String, AttributeModifier> multimap = super.getAttributeModifiers(slot, itemStack);
 
         if (slot == EquipmentSlotType.MAINHAND) {
@@ -837,21 +908,7 @@ public class ItemModularHandheld extends ItemModular {
             return 0;
         }
 
-        double damageModifier = getAllModules(itemStack).stream()
-                .mapToDouble(itemModule -> itemModule.getDamageModifier(itemStack))
-                .sum();
-
-        damageModifier = Arrays.stream(getSynergyData(itemStack))
-                .mapToDouble(synergyData -> synergyData.damage)
-                .reduce(damageModifier, Double::sum);
-
-        damageModifier = Arrays.stream(getSynergyData(itemStack))
-                .mapToDouble(synergyData -> synergyData.damageMultiplier)
-                .reduce(damageModifier, (a, b) -> a * b);
-
-        return getAllModules(itemStack).stream()
-                .map(itemModule -> itemModule.getDamageMultiplierModifier(itemStack))
-                .reduce(damageModifier, (a, b) -> a * b);
+        return getSnapshot(itemStack).getDamageModifier(0);
     }
 
     public double getAbilityBaseDamage(ItemStack itemStack) {
@@ -866,23 +923,10 @@ public class ItemModularHandheld extends ItemModular {
     }
 
     public double getSpeedModifier(ItemStack itemStack) {
-        double speedModifier = getAllModules(itemStack).stream()
-                .map(itemModule -> itemModule.getSpeedModifier(itemStack))
-                .reduce(speedBase, Double::sum);
-
-        speedModifier = Arrays.stream(getSynergyData(itemStack))
-                .mapToDouble(synergyData -> synergyData.attackSpeed)
-                .reduce(speedModifier, Double::sum);
-
-        speedModifier = Arrays.stream(getSynergyData(itemStack))
-                .mapToDouble(synergyData -> synergyData.attackSpeedMultiplier)
-                .reduce(speedModifier, (a, b) -> a * b);
+        ItemModularSnapshot snapshot = getSnapshot(itemStack);
+        double speedModifier = snapshot.getSpeedModifier(speedBase);
 
-        speedModifier = getAllModules(itemStack).stream()
-                .map(itemModule -> itemModule.getSpeedMultiplierModifier(itemStack))
-                .reduce(speedModifier, (a, b) -> a * b);
-
-        speedModifier *= getCounterWeightMultiplier(itemStack);
+        speedModifier *= getCounterWeightMultiplier(snapshot);
 
         if (speedModifier < -4) {
             speedModifier = -3.9d;
@@ -892,11 +936,13 @@ public class ItemModularHandheld extends ItemModular {
     }
 
     public double getCounterWeightMultiplier(ItemStack itemStack) {
-        int counterWeightLevel = getEffectLevel(itemStack, ItemEffect.counterweight);
-        if (counterWeightLevel > 0) {
-            int integrityCost = getIntegrityCost(itemStack);
+        return getCounterWeightMultiplier(getSnapshot(itemStack));
+    }
 
-            return 0.5 + Math.abs(counterWeightLevel + integrityCost) * 0.2;
+    protected double getCounterWeightMultiplier(ItemModularSnapshot snapshot) {
+        int counterWeightLevel = snapshot.getEffectLevel(ItemEffect.counterweight);
+        if (counterWeightLevel > 0) {
+            return 0.5 + Math.abs(counterWeightLevel + snapshot.integrityCost) * 0.2;
         }
         return 1;
     }
@@ -913,18 +959,13 @@ public class ItemModularHandheld extends ItemModular {
     }
 
     public double getRangeModifier(ItemStack itemStack) {
-        return getAllModules(itemStack).stream()
-                .map(itemModule -> itemModule.getRangeModifier(itemStack))
-                .reduce(0d, Double::sum);
+        return getSnapshot(itemStack).getRangeModifier();
     }
 
     @Override
     public Set<ToolType> getToolTypes(ItemStack stack) {
         if (!isBroken(stack)) {
-            return getCapabilities(stack).stream()
-                    .map(Enum::toString)
-                    .map(ToolType::get)
-                    .collect(Collectors.toSet());
+            return getHarvestProfile(stack).toolTypes;
         }
         return Collections.emptySet();
     }
@@ -932,11 +973,7 @@ public class ItemModularHandheld extends ItemModular {
     @Override
     public int getHarvestLevel(ItemStack stack, ToolType tool, @Nullable PlayerEntity player, @Nullable BlockState blockState) {
         if (!isBroken(stack)) {
-            // todo: change tool capabilities to be zero indexed to align with vanilla
-            int capabilityLevel = getCapabilityLevel(stack, tool);
-            if (capabilityLevel > 0) {
-                return capabilityLevel - 1;
-            }
+            return getHarvestProfile(stack).getHarvestLevel(tool);
         }
         return -1;
     }
@@ -963,17 +1000,14 @@ public class ItemModularHandheld extends ItemModular {
     @Override
     public float getDestroySpeed(ItemStack itemStack, BlockState blockState) {
         if (!isBroken(itemStack)) {
+            ItemHarvestProfile profile = getHarvestProfile(itemStack);
             ToolType tool = getEffectiveTool(blockState);
-            float speed = (float) (4 + getSpeedModifier(itemStack));
+            float speed = profile.baseSpeed;
 
             if (tool != null) {
-                speed *= getCapabilityEfficiency(itemStack, tool);
+                speed *= profile.getEfficiency(tool);
             } else {
-                speed *= getToolTypes(itemStack).stream()
-                        .filter(blockState::isToolEffective)
-                        .map(toolType -> getCapabilityEfficiency(itemStack, toolType))
-                        .max(Comparator.naturalOrder())
-                        .orElse(0f);
+                speed *= profile.getHighestEfficiency(blockState::isToolEffective);
             }
 
             // todo: need a better way to handle how swords break cobwebs faster
@@ -1014,7 +1048,26 @@ public class ItemModularHandheld extends ItemModular {
         return toolType.equals(blockState.getHarvestTool());
     }
 
+    /**
+     * Returns the tool type that is effective against the given blockstate, memoized per blockstate.
+     * @param blockState A blockstate
+     * @return the effective tool type, or null if no tool is effective
+     */
     public static ToolType getEffectiveTool(BlockState blockState) {
+        if (effectiveToolTagGeneration != BlockTags.getGeneration()) {
+            effectiveToolCache.clear();
+            effectiveToolTagGeneration = BlockTags.getGeneration();
+        }
+
+        Optional<ToolType> tool = effectiveToolCache.get(blockState);
+        if (tool == null) {
+            tool = Optional.ofNullable(resolveEffectiveTool(blockState));
+            effectiveToolCache.put(blockState, tool);
+        }
+        return tool.orElse(null);
+    }
+
+    private static ToolType resolveEffectiveTool(BlockState blockState) {
         ToolType tool = blockState.getHarvestTool();
 
         if (tool != null) {
@@ -1077,4 +1130,43 @@ public class ItemModularHandheld extends ItemModular {
 
         return super.onCraftConsumeCapability(providerStack, targetStack, player, capability, capabilityLevel, consumeResources);
     }
+
+    private static class AttributeCacheKey {
+        private final ItemModularHandheld item;
+        private final String identifier;
+        private final EquipmentSlotType slot;
+        private final boolean broken;
+
+        AttributeCacheKey(ItemModularHandheld item, String identifier, EquipmentSlotType slot, boolean broken) {
+            this.item = item;
+            this.identifier = identifier;
+            this.slot = slot;
+            this.broken = broken;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            AttributeCacheKey cacheKey = (AttributeCacheKey) o;
+            return broken == cacheKey.broken
+                    && item == cacheKey.item
+                    && slot == cacheKey.slot
+                    && identifier.equals(cacheKey.identifier);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = item.hashCode();
+            result = 31 * result + identifier.hashCode();
+            result = 31 * result + slot.hashCode();
+            result = 31 * result + (broken ? 1 : 0);
+            return result;
+        }
+    }
 }
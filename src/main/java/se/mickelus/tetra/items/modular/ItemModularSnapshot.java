@@ -0,0 +1,358 @@
+package se.mickelus.tetra.items.modular;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import se.mickelus.tetra.NBTHelper;
+import se.mickelus.tetra.capabilities.Capability;
+import se.mickelus.tetra.module.ItemEffect;
+import se.mickelus.tetra.module.ItemModule;
+import se.mickelus.tetra.module.ItemModuleMajor;
+import se.mickelus.tetra.module.ItemUpgradeRegistry;
+import se.mickelus.tetra.module.data.ImprovementData;
+import se.mickelus.tetra.module.data.ModuleVariantData;
+import se.mickelus.tetra.module.data.SynergyData;
+import se.mickelus.tetra.module.data.TweakData;
+
+import java.util.*;
+
+/**
+ * Immutable view of everything that has been resolved for a modular itemstack: the modules in each slot, their variants, tweaks and
+ * improvements, the active synergies and the stats aggregated from all of those. Snapshots are cached per item identifier, or per tag
+ * content for itemstacks without one (see {@link ItemModular#getSnapshot(ItemStack)}), and are rebuilt when the identifier changes,
+ * which happens whenever modules, tweaks or improvements are altered. Broken state depends on item damage and is therefore not part of
+ * the snapshot.
+ */
+public class ItemModularSnapshot {
+    private static final Capability[] capabilityValues = Capability.values();
+    private static final ItemEffect[] effectValues = ItemEffect.values();
+
+    /**
+     * All modules present on the item, major modules followed by minor modules in slot order.
+     */
+    public final ItemModule[] modules;
+
+    /**
+     * Major modules by slot index, empty slots are null.
+     */
+    public final ItemModuleMajor[] majorModules;
+
+    /**
+     * Minor modules by slot index, empty slots are null.
+     */
+    public final ItemModule[] minorModules;
+
+    /**
+     * Variant data and active tweaks for each module, indexed the same way as the modules array.
+     */
+    public final ModuleVariantData[] variants;
+    public final TweakData[][] tweaks;
+
+    /**
+     * Improvements from all major modules.
+     */
+    public final ImprovementData[] improvements;
+
+    public final SynergyData[] synergies;
+
+    /**
+     * Damage, speed and range modifiers for each module, indexed the same way as the modules array.
+     */
+    public final double[] damageModifiers;
+    public final double[] damageMultiplierModifiers;
+    public final double[] speedModifiers;
+    public final double[] speedMultiplierModifiers;
+    public final double[] rangeModifiers;
+
+    /**
+     * Damage and speed modifiers summed (or multiplied) across all active synergies.
+     */
+    public final double synergyDamage;
+    public final double synergyDamageMultiplier;
+    public final double synergySpeed;
+    public final double synergySpeedMultiplier;
+
+    public final int maxDamage;
+    public final float durabilityMultiplier;
+
+    public final int integrityGain;
+    public final int integrityCost;
+
+    private final int[] effectLevels;
+    private final double[] effectEfficiencies;
+    public final Set<ItemEffect> effects;
+
+    // bits indexed by effect ordinal, set for effects that have a level above zero
+    private final long[] effectMask;
+
+    private final int[] capabilityLevels;
+    private final float[] capabilityEfficiencies;
+    public final Set<Capability> capabilities;
+
+    private final List<ItemModule> moduleList;
+
+    public ItemModularSnapshot(ItemModular item, ItemStack itemStack) {
+        CompoundNBT tag = NBTHelper.getTag(itemStack);
+        String[] majorKeys = item.getMajorModuleKeys();
+        String[] minorKeys = item.getMinorModuleKeys();
+
+        List<ItemModule> moduleList = new ArrayList<>(majorKeys.length + minorKeys.length);
+
+        majorModules = new ItemModuleMajor[majorKeys.length];
+        for (int i = 0; i < majorKeys.length; i++) {
+            ItemModule module = ItemUpgradeRegistry.instance.getModule(tag.getString(majorKeys[i]));
+            if (module != null) {
+                moduleList.add(module);
+                if (module instanceof ItemModuleMajor) {
+                    majorModules[i] = (ItemModuleMajor) module;
+                }
+            }
+        }
+
+        minorModules = new ItemModule[minorKeys.length];
+        for (int i = 0; i < minorKeys.length; i++) {
+            ItemModule module = ItemUpgradeRegistry.instance.getModule(tag.getString(minorKeys[i]));
+            if (module != null) {
+                moduleList.add(module);
+                minorModules[i] = module;
+            }
+        }
+
+        modules = moduleList.toArray(new ItemModule[0]);
+        this.moduleList = Collections.unmodifiableList(Arrays.asList(modules));
+
+        variants = new ModuleVariantData[modules.length];
+        tweaks = new TweakData[modules.length][];
+        for (int i = 0; i < modules.length; i++) {
+            variants[i] = modules[i].getVariantData(itemStack);
+            tweaks[i] = modules[i].getTweaks(itemStack);
+        }
+
+        improvements = Arrays.stream(majorModules)
+                .filter(Objects::nonNull)
+                .flatMap(module -> Arrays.stream(module.getImprovements(itemStack)))
+                .toArray(ImprovementData[]::new);
+
+        synergies = item.findSynergies(modules, variants, improvements);
+
+        damageModifiers = new double[modules.length];
+        damageMultiplierModifiers = new double[modules.length];
+        speedModifiers = new double[modules.length];
+        speedMultiplierModifiers = new double[modules.length];
+        rangeModifiers = new double[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            damageModifiers[i] = modules[i].getDamageModifier(itemStack);
+            damageMultiplierModifiers[i] = modules[i].getDamageMultiplierModifier(itemStack);
+            speedModifiers[i] = modules[i].getSpeedModifier(itemStack);
+            speedMultiplierModifiers[i] = modules[i].getSpeedMultiplierModifier(itemStack);
+            rangeModifiers[i] = modules[i].getRangeModifier(itemStack);
+        }
+
+        double synergyDamage = 0;
+        double synergyDamageMultiplier = 1;
+        double synergySpeed = 0;
+        double synergySpeedMultiplier = 1;
+        for (SynergyData synergy : synergies) {
+            synergyDamage += synergy.damage;
+            synergyDamageMultiplier *= synergy.damageMultiplier;
+            synergySpeed += synergy.attackSpeed;
+            synergySpeedMultiplier *= synergy.attackSpeedMultiplier;
+        }
+        this.synergyDamage = synergyDamage;
+        this.synergyDamageMultiplier = synergyDamageMultiplier;
+        this.synergySpeed = synergySpeed;
+        this.synergySpeedMultiplier = synergySpeedMultiplier;
+
+        int durability = item.baseDurability;
+        float durabilityMultiplier = 1;
+        int integrityGain = 0;
+        int integrityCost = 0;
+        for (ItemModule module : modules) {
+            durability += module.getDurability(itemStack);
+            durabilityMultiplier *= module.getDurabilityMultiplier(itemStack);
+            integrityGain += module.getIntegrityGain(itemStack);
+            integrityCost += module.getIntegrityCost(itemStack);
+        }
+        this.durabilityMultiplier = durabilityMultiplier;
+        this.maxDamage = (int) (durability * durabilityMultiplier);
+        this.integrityGain = integrityGain;
+        this.integrityCost = integrityCost;
+
+        effectLevels = new int[effectValues.length];
+        effectEfficiencies = new double[effectValues.length];
+        Set<ItemEffect> effects = EnumSet.noneOf(ItemEffect.class);
+        for (ItemModule module : modules) {
+            effects.addAll(module.getEffects(itemStack));
+            for (ItemEffect effect : effectValues) {
+                effectLevels[effect.ordinal()] += module.getEffectLevel(itemStack, effect);
+                effectEfficiencies[effect.ordinal()] += module.getEffectEfficiency(itemStack, effect);
+            }
+        }
+        this.effects = Collections.unmodifiableSet(effects);
+
+        effectMask = new long[(effectValues.length + 63) / 64];
+        for (ItemEffect effect : effectValues) {
+            if (effectLevels[effect.ordinal()] > 0) {
+                effectMask[effect.ordinal() >> 6] |= 1L << (effect.ordinal() & 63);
+            }
+        }
+
+        capabilityLevels = new int[capabilityValues.length];
+        capabilityEfficiencies = new float[capabilityValues.length];
+        Set<Capability> capabilities = EnumSet.noneOf(Capability.class);
+        for (ItemModule module : modules) {
+            capabilities.addAll(module.getCapabilities(itemStack));
+        }
+        this.capabilities = Collections.unmodifiableSet(capabilities);
+
+        for (Capability capability : capabilityValues) {
+            resolveCapability(itemStack, capability);
+        }
+    }
+
+    private void resolveCapability(ItemStack itemStack, Capability capability) {
+        int[] moduleLevels = new int[modules.length];
+        int highestLevel = -1;
+        for (int i = 0; i < modules.length; i++) {
+            moduleLevels[i] = modules[i].getCapabilityLevel(itemStack, capability);
+            highestLevel = Math.max(highestLevel, moduleLevels[i]);
+        }
+
+        int synergyLevel = 0;
+        float synergyEfficiency = 0;
+        for (SynergyData synergy : synergies) {
+            synergyLevel += synergy.capabilities.getLevel(capability);
+            synergyEfficiency += synergy.capabilities.getEfficiency(capability);
+        }
+
+        int level = highestLevel + synergyLevel;
+        capabilityLevels[capability.ordinal()] = level;
+
+        if (level <= 0) {
+            return;
+        }
+
+        // grabs the highest efficiency from the module(s) that have the highest capability level, and adds the efficiency of all modules
+        // that have 0 capability level
+        float highestEfficiency = -Float.MAX_VALUE;
+        float additionalEfficiency = 0;
+        for (int i = 0; i < modules.length; i++) {
+            if (moduleLevels[i] >= highestLevel) {
+                highestEfficiency = Math.max(highestEfficiency, modules[i].getCapabilityEfficiency(itemStack, capability));
+            }
+
+            if (moduleLevels[i] == 0) {
+                additionalEfficiency += modules[i].getCapabilityEfficiency(itemStack, capability);
+            }
+        }
+
+        if (highestEfficiency == -Float.MAX_VALUE) {
+            highestEfficiency = 1;
+        }
+
+        capabilityEfficiencies[capability.ordinal()] = Math.max(0, highestEfficiency + additionalEfficiency + synergyEfficiency);
+    }
+
+    /**
+     * Sums the damage modifiers of all modules and synergies, and then applies synergy and module damage multipliers. Primitive loop
+     * over the precomputed arrays, does not allocate.
+     * @param base The damage to start from, before any modifiers are added
+     * @return the resulting damage modifier
+     */
+    public double getDamageModifier(double base) {
+        double damageModifier = base;
+        for (double moduleDamage : damageModifiers) {
+            damageModifier += moduleDamage;
+        }
+
+        damageModifier += synergyDamage;
+        return applyDamageMultipliers(damageModifier);
+    }
+
+    /**
+     * Applies synergy and module damage multipliers to the given damage.
+     */
+    public double applyDamageMultipliers(double damageModifier) {
+        damageModifier *= synergyDamageMultiplier;
+        for (double multiplier : damageMultiplierModifiers) {
+            damageModifier *= multiplier;
+        }
+        return damageModifier;
+    }
+
+    /**
+     * Sums the speed modifiers of all modules and synergies, and then applies synergy and module speed multipliers. Primitive loop
+     * over the precomputed arrays, does not allocate.
+     * @param base The speed to start from, before any modifiers are added
+     * @return the resulting speed modifier
+     */
+    public double getSpeedModifier(double base) {
+        double speedModifier = base;
+        for (double moduleSpeed : speedModifiers) {
+            speedModifier += moduleSpeed;
+        }
+
+        speedModifier += synergySpeed;
+        speedModifier *= synergySpeedMultiplier;
+
+        for (double multiplier : speedMultiplierModifiers) {
+            speedModifier *= multiplier;
+        }
+        return speedModifier;
+    }
+
+    public double getRangeModifier() {
+        double rangeModifier = 0;
+        for (double moduleRange : rangeModifiers) {
+            rangeModifier += moduleRange;
+        }
+        return rangeModifier;
+    }
+
+    public Collection<ItemModule> getModules() {
+        return moduleList;
+    }
+
+    public int getEffectLevel(ItemEffect effect) {
+        return effectLevels[effect.ordinal()];
+    }
+
+    public double getEffectEfficiency(ItemEffect effect) {
+        return effectEfficiencies[effect.ordinal()];
+    }
+
+    /**
+     * Builds a mask from the given effects, to be used with {@link #hasAnyEffect(long[])}. Masks are meant to be built once and kept
+     * around, e.g. for all effects that an event handler reacts to.
+     * @param effects The effects to include in the mask
+     * @return a mask over the given effects
+     */
+    public static long[] getEffectMask(ItemEffect ... effects) {
+        long[] mask = new long[(effectValues.length + 63) / 64];
+        for (ItemEffect effect : effects) {
+            mask[effect.ordinal() >> 6] |= 1L << (effect.ordinal() & 63);
+        }
+        return mask;
+    }
+
+    /**
+     * Checks if any of the effects in the given mask has a level above zero, does not allocate.
+     * @param mask A mask built using {@link #getEffectMask(ItemEffect...)}
+     * @return true if the item has any of the effects in the mask
+     */
+    public boolean hasAnyEffect(long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            if ((effectMask[i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getCapabilityLevel(Capability capability) {
+        return capabilityLevels[capability.ordinal()];
+    }
+
+    public float getCapabilityEfficiency(Capability capability) {
+        return capabilityEfficiencies[capability.ordinal()];
+    }
+}
@@ -0,0 +1,206 @@
+package se.mickelus.tetra.items.modular;
+
+import se.mickelus.tetra.module.ItemModule;
+import se.mickelus.tetra.module.data.ImprovementData;
+import se.mickelus.tetra.module.data.ModuleVariantData;
+import se.mickelus.tetra.module.data.SynergyData;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled form of the synergies available for a modular item type. Every module, variant and improvement key that is required by any
+ * synergy is assigned a bit when the matcher is created, matching an item is then a matter of checking that the required bits for each
+ * synergy are present among the bits set by the item.
+ */
+public class SynergyMatcher {
+    public static final SynergyMatcher empty = new SynergyMatcher(new SynergyData[0]);
+
+    private final SynergyData[] synergies;
+
+    private final Map<String, Integer> moduleIds = new HashMap<>();
+    private final Map<String, Integer> variantIds = new HashMap<>();
+    private final Map<String, Integer> improvementIds = new HashMap<>();
+    private int idCount = 0;
+
+    private final Requirement[] moduleRequirements;
+    private final Requirement[] variantRequirements;
+    private final Requirement[] improvementRequirements;
+
+    public SynergyMatcher(SynergyData[] synergies) {
+        this.synergies = synergies;
+
+        for (SynergyData synergy : synergies) {
+            assignIds(moduleIds, synergy.modules);
+            assignIds(variantIds, synergy.moduleVariants);
+            // improvement requirements are checked against the module variants of the synergy, the improvements only tell if it applies
+            assignIds(improvementIds, synergy.moduleVariants);
+        }
+
+        moduleRequirements = new Requirement[synergies.length];
+        variantRequirements = new Requirement[synergies.length];
+        improvementRequirements = new Requirement[synergies.length];
+        for (int i = 0; i < synergies.length; i++) {
+            moduleRequirements[i] = new Requirement(moduleIds, synergies[i].modules);
+            variantRequirements[i] = new Requirement(variantIds, synergies[i].moduleVariants);
+            improvementRequirements[i] = new Requirement(improvementIds, synergies[i].moduleVariants);
+        }
+    }
+
+    private void assignIds(Map<String, Integer> ids, String[] keys) {
+        for (String key : keys) {
+            if (!ids.containsKey(key)) {
+                ids.put(key, idCount++);
+            }
+        }
+    }
+
+    /**
+     * Finds the synergies that apply for the given modules and improvements.
+     * @param modules All modules present on an item
+     * @param variants The variant of each module, indexed the same way as the modules array
+     * @param improvements All improvements present on an item
+     * @return An array of matching synergies
+     */
+    public SynergyData[] match(ItemModule[] modules, ModuleVariantData[] variants, ImprovementData[] improvements) {
+        if (synergies.length == 0) {
+            return new SynergyData[0];
+        }
+
+        long[] present = new long[(idCount + 63) >> 6];
+        int[] counts = new int[idCount];
+
+        for (int i = 0; i < modules.length; i++) {
+            mark(present, counts, moduleIds.get(modules[i].getUnlocalizedName()));
+            mark(present, counts, variantIds.get(variants[i].key));
+        }
+
+        for (ImprovementData improvement : improvements) {
+            mark(present, counts, improvementIds.get(improvement.key));
+        }
+
+        boolean[] matches = new boolean[synergies.length];
+        int matchCount = 0;
+        for (int i = 0; i < synergies.length; i++) {
+            boolean variantMatch = !variantRequirements[i].isEmpty() && variantRequirements[i].matches(present, counts);
+            boolean moduleMatch = !variantMatch && !moduleRequirements[i].isEmpty() && moduleRequirements[i].matches(present, counts)
+                    && (!synergies[i].sameVariant || hasSameVariant(synergies[i], modules, variants));
+
+            if ((variantMatch || moduleMatch)
+                    && (synergies[i].improvements.length == 0
+                    || (!improvementRequirements[i].isEmpty() && improvementRequirements[i].matches(present, counts)))) {
+                matches[i] = true;
+                matchCount++;
+            }
+        }
+
+        SynergyData[] result = new SynergyData[matchCount];
+        for (int i = 0, j = 0; i < synergies.length; i++) {
+            if (matches[i]) {
+                result[j++] = synergies[i];
+            }
+        }
+
+        return result;
+    }
+
+    private static void mark(long[] present, int[] counts, Integer id) {
+        if (id != null) {
+            present[id >> 6] |= 1L << id;
+            counts[id]++;
+        }
+    }
+
+    /**
+     * Checks that there are enough modules of each required kind that share the variant of the first module matching the lowest
+     * sorted required module, synergy modules are sorted when synergy data is loaded.
+     */
+    private boolean hasSameVariant(SynergyData synergy, ItemModule[] modules, ModuleVariantData[] variants) {
+        String variant = null;
+        for (int i = 0; i < modules.length && variant == null; i++) {
+            if (modules[i].getUnlocalizedName().equals(synergy.modules[0])) {
+                variant = variants[i].key;
+            }
+        }
+
+        if (variant == null) {
+            return false;
+        }
+
+        for (int i = 0; i < synergy.modules.length; i++) {
+            if (i > 0 && synergy.modules[i].equals(synergy.modules[i - 1])) {
+                continue;
+            }
+
+            int required = 0;
+            for (int j = i; j < synergy.modules.length && synergy.modules[j].equals(synergy.modules[i]); j++) {
+                required++;
+            }
+
+            int count = 0;
+            for (int j = 0; j < modules.length; j++) {
+                if (modules[j].getUnlocalizedName().equals(synergy.modules[i]) && variant.equals(variants[j].key)) {
+                    count++;
+                }
+            }
+
+            if (count < required) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Bits that have to be present for a set of keys to match, keys that are required more than once also have their count checked.
+     */
+    private class Requirement {
+        private final long[] mask;
+        private final int[] countIds;
+        private final int[] requiredCounts;
+        private final boolean empty;
+
+        Requirement(Map<String, Integer> ids, String[] keys) {
+            mask = new long[(idCount + 63) >> 6];
+            empty = keys.length == 0;
+
+            Map<Integer, Integer> keyCounts = new HashMap<>();
+            for (String key : keys) {
+                int id = ids.get(key);
+                mask[id >> 6] |= 1L << id;
+                keyCounts.merge(id, 1, Integer::sum);
+            }
+
+            keyCounts.values().removeIf(count -> count < 2);
+            countIds = new int[keyCounts.size()];
+            requiredCounts = new int[keyCounts.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : keyCounts.entrySet()) {
+                countIds[i] = entry.getKey();
+                requiredCounts[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        boolean matches(long[] present, int[] counts) {
+            for (int i = 0; i < mask.length; i++) {
+                if ((mask[i] & ~present[i]) != 0) {
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < countIds.length; i++) {
+                if (counts[countIds[i]] < requiredCounts[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -20,15 +20,14 @@ import se.mickelus.tetra.capabilities.Capability;
 import se.mickelus.tetra.data.DataManager;
 import se.mickelus.tetra.items.TetraItemGroup;
 import se.mickelus.tetra.items.modular.ItemModularHandheld;
+import se.mickelus.tetra.items.modular.ItemModularSnapshot;
 import se.mickelus.tetra.module.SchemaRegistry;
 import se.mickelus.tetra.module.schema.RemoveSchema;
 import se.mickelus.tetra.module.schema.RepairSchema;
 import se.mickelus.tetra.network.PacketHandler;
 
 import java.util.Arrays;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Stream;
 
 
 public class ModularDoubleHeadedItem extends ItemModularHandheld {
@@ -73,7 +72,7 @@ public class ModularDoubleHeadedItem extends ItemModularHandheld {
 
     @Override
     public void init(PacketHandler packetHandler) {
-        DataManager.synergyData.onReload(() -> synergies = DataManager.instance.getSynergyData("double"));
+        DataManager.synergyData.onReload(() -> setSynergies(DataManager.instance.getSynergyData("double")));
     }
 
     @Override
@@ -128,29 +127,27 @@ public class ModularDoubleHeadedItem extends ItemModularHandheld {
             return 0;
         }
 
+        ItemModularSnapshot snapshot = getSnapshot(itemStack);
+
         // only use the damage from the highest damaging head
-        double damageModifier = Stream.of(getModuleFromSlot(itemStack, headLeftKey), getModuleFromSlot(itemStack, headRightKey))
-                .filter(Objects::nonNull)
-                .mapToDouble(module -> module.getDamageModifier(itemStack))
-                .max()
-                .orElse(0);
-
-        damageModifier = getAllModules(itemStack).stream()
-                .filter(itemModule -> !(headLeftKey.equals(itemModule.getSlot()) || headRightKey.equals(itemModule.getSlot())))
-                .map(itemModule -> itemModule.getDamageModifier(itemStack))
-                .reduce(damageModifier, Double::sum);
-
-        damageModifier = Arrays.stream(getSynergyData(itemStack))
-                .mapToDouble(synergyData -> synergyData.damage)
-                .reduce(damageModifier, Double::sum);
-
-        damageModifier = Arrays.stream(getSynergyData(itemStack))
-                .mapToDouble(synergyData -> synergyData.damageMultiplier)
-                .reduce(damageModifier, (a, b) -> a * b);
-
-        return getAllModules(itemStack).stream()
-                .map(itemModule -> itemModule.getDamageMultiplierModifier(itemStack))
-                .reduce(damageModifier, (a, b) -> a * b);
+        double headDamage = -Double.MAX_VALUE;
+        double damageModifier = 0;
+        for (int i = 0; i < snapshot.modules.length; i++) {
+            String slot = snapshot.modules[i].getSlot();
+            if (headLeftKey.equals(slot) || headRightKey.equals(slot)) {
+                headDamage = Math.max(headDamage, snapshot.damageModifiers[i]);
+            } else {
+                damageModifier += snapshot.damageModifiers[i];
+            }
+        }
+
+        if (headDamage != -Double.MAX_VALUE) {
+            damageModifier += headDamage;
+        }
+
+        damageModifier += snapshot.synergyDamage;
+
+        return snapshot.applyDamageMultipliers(damageModifier);
     }
 }
 
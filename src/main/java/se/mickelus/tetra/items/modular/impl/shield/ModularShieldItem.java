@@ -88,8 +88,8 @@ public class ModularShieldItem extends ItemModularHandheld {
     }
 
     @Override
-    public Multimap<String, AttributeModifier> getAttributeModifiers(EquipmentSlotType slot, ItemStack itemStack) {
-        Multimap<String, AttributeModifier> modifiers = super.getAttributeModifiers(slot, itemStack);
+    protected Multimap<String, AttributeModifier> computeAttributeModifiers(EquipmentSlotType slot, ItemStack itemStack) {
+        Multimap<String, AttributeModifier> modifiers = super.computeAttributeModifiers(slot, itemStack);
         modifiers.removeAll(SharedMonsterAttributes.ATTACK_SPEED.getName());
         modifiers.removeAll(SharedMonsterAttributes.ATTACK_DAMAGE.getName());
         return modifiers;
@@ -21,6 +21,7 @@ import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.network.NetworkHooks;
 import net.minecraftforge.registries.ObjectHolder;
 import se.mickelus.tetra.TetraMod;
+import se.mickelus.tetra.data.DataManager;
 import se.mickelus.tetra.items.modular.ItemModular;
 import se.mickelus.tetra.items.TetraItemGroup;
 import se.mickelus.tetra.items.modular.impl.toolbelt.booster.JumpHandlerBooster;
@@ -30,6 +31,7 @@ import se.mickelus.tetra.items.modular.impl.toolbelt.booster.UpdateBoosterPacket
 import se.mickelus.tetra.items.modular.impl.toolbelt.gui.ToolbeltGui;
 import se.mickelus.tetra.items.modular.impl.toolbelt.inventory.ToolbeltInventory;
 import se.mickelus.tetra.module.ItemEffect;
+import se.mickelus.tetra.module.ModuleRegistry;
 import se.mickelus.tetra.module.schema.RemoveSchema;
 import se.mickelus.tetra.network.PacketHandler;
 
@@ -64,6 +66,9 @@ public class ModularToolbeltItem extends ItemModular implements INamedContainerP
         minorModuleKeys = new String[] { beltKey };
 
         requiredModules = new String[] { beltKey };
+
+        ModuleRegistry.instance.onReload(ToolbeltView::invalidateAll);
+        DataManager.replacementData.onReload(ToolbeltView::invalidateAll);
     }
 
     @Override
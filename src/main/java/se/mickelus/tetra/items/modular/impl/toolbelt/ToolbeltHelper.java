@@ -2,7 +2,6 @@ package se.mickelus.tetra.items.modular.impl.toolbelt;
 
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.BlockPos;
@@ -132,14 +131,7 @@ public class ToolbeltHelper {
                 return ItemStack.EMPTY;
             }
         }
-        PlayerInventory inventoryPlayer = player.inventory;
-        for (int i = 0; i < inventoryPlayer.mainInventory.size(); ++i) {
-            ItemStack itemStack = inventoryPlayer.getStackInSlot(i);
-            if (ModularToolbeltItem.instance.equals(itemStack.getItem())) {
-                return itemStack;
-            }
-        }
-        return ItemStack.EMPTY;
+        return ToolbeltView.findInInventory(player);
     }
 
     public static void emptyOverflowSlots(ItemStack itemStack, PlayerEntity player) {
@@ -157,8 +149,12 @@ public class ToolbeltHelper {
      * @return a quickslot inventory index if a suitable tool is found, otherwise -1
      */
     public static int getQuickAccessSlotIndex(PlayerEntity player, RayTraceResult traceResult, BlockState blockState) {
-        ItemStack toolbeltStack = ToolbeltHelper.findToolbelt(player);
-        QuickslotInventory inventory = new QuickslotInventory(toolbeltStack);
+        ToolbeltView view = ToolbeltView.get(player);
+        if (view == null) {
+            return -1;
+        }
+
+        QuickslotInventory inventory = view.getQuickslotInventory();
         List<Collection<ItemEffect>> effects = inventory.getSlotEffects();
 
         if (traceResult instanceof BlockRayTraceResult) {
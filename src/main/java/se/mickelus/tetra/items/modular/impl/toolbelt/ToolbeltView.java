@@ -0,0 +1,207 @@
+package se.mickelus.tetra.items.modular.impl.toolbelt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+import se.mickelus.tetra.capabilities.Capability;
+import se.mickelus.tetra.capabilities.ICapabilityProvider;
+import se.mickelus.tetra.items.modular.impl.toolbelt.inventory.QuickslotInventory;
+import se.mickelus.tetra.items.modular.impl.toolbelt.inventory.StorageInventory;
+import se.mickelus.tetra.module.ItemUpgradeRegistry;
+
+import java.util.*;
+
+/**
+ * Cached view of the toolbelt carried by a player. The slot that holds the toolbelt is remembered, and the toolbelt inventories and a
+ * summary of the capabilities they provide are decoded once and reused until the toolbelt is swapped, modified or written to, or until
+ * modules or replacements are reloaded.
+ * Inventories obtained from the view should be treated as read only, use new inventory instances to change the contents of a toolbelt.
+ */
+public class ToolbeltView {
+    private static final Cache<PlayerEntity, ToolbeltView> views = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    // the main inventory slot that last held a toolbelt, and when it was found
+    private int slot = -1;
+    private int ticksExisted = -1;
+    private int timesChanged = -1;
+
+    private ItemStack toolbeltStack = ItemStack.EMPTY;
+    private String identifier = "";
+
+    private QuickslotInventory quickslotInventory;
+    private StorageInventory storageInventory;
+
+    private int[] capabilityLevels;
+    private Set<Capability> capabilities;
+
+    /**
+     * Drops all views, called when modules or replacements are reloaded as the inventories and capability summaries depend on them.
+     */
+    static void invalidateAll() {
+        views.invalidateAll();
+    }
+
+    private static ToolbeltView getView(PlayerEntity player) {
+        ToolbeltView view = views.getIfPresent(player);
+        if (view == null) {
+            view = new ToolbeltView();
+            views.put(player, view);
+        }
+
+        return view;
+    }
+
+    /**
+     * Get the view for the toolbelt currently carried by the given player.
+     * @param player A player
+     * @return the view, or null if the player has no toolbelt
+     */
+    public static ToolbeltView get(PlayerEntity player) {
+        ItemStack toolbeltStack = ToolbeltHelper.findToolbelt(player);
+        if (toolbeltStack.isEmpty()) {
+            return null;
+        }
+
+        ToolbeltView view = getView(player);
+        view.validate(toolbeltStack);
+        return view;
+    }
+
+    /**
+     * Finds the first toolbelt in the main inventory of the given player. The slot of the last found toolbelt is checked first, and is
+     * trusted for as long as the inventory has not been marked as changed. The absence of a toolbelt is only trusted for the current
+     * tick.
+     */
+    static ItemStack findInInventory(PlayerEntity player) {
+        return getView(player).find(player);
+    }
+
+    private ItemStack find(PlayerEntity player) {
+        PlayerInventory inventory = player.inventory;
+        if (timesChanged == inventory.getTimesChanged()) {
+            if (slot >= 0 && slot < inventory.mainInventory.size()) {
+                ItemStack itemStack = inventory.mainInventory.get(slot);
+                if (ModularToolbeltItem.instance.equals(itemStack.getItem())) {
+                    return itemStack;
+                }
+            } else if (slot == -1 && ticksExisted == player.ticksExisted) {
+                return ItemStack.EMPTY;
+            }
+        }
+
+        timesChanged = inventory.getTimesChanged();
+        ticksExisted = player.ticksExisted;
+        slot = -1;
+
+        for (int i = 0; i < inventory.mainInventory.size(); ++i) {
+            ItemStack itemStack = inventory.mainInventory.get(i);
+            if (ModularToolbeltItem.instance.equals(itemStack.getItem())) {
+                slot = i;
+                return itemStack;
+            }
+        }
+
+        return ItemStack.EMPTY;
+    }
+
+    private void validate(ItemStack toolbeltStack) {
+        String identifier = ModularToolbeltItem.instance.getIdentifier(toolbeltStack);
+        if (toolbeltStack != this.toolbeltStack || !identifier.equals(this.identifier)) {
+            this.toolbeltStack = toolbeltStack;
+            this.identifier = identifier;
+
+            quickslotInventory = null;
+            storageInventory = null;
+            capabilityLevels = null;
+            capabilities = null;
+        }
+
+        if (quickslotInventory != null && quickslotInventory.isStale()) {
+            quickslotInventory = null;
+            capabilityLevels = null;
+            capabilities = null;
+        }
+
+        if (storageInventory != null && storageInventory.isStale()) {
+            storageInventory = null;
+            capabilityLevels = null;
+            capabilities = null;
+        }
+    }
+
+    public ItemStack getToolbeltStack() {
+        return toolbeltStack;
+    }
+
+    public QuickslotInventory getQuickslotInventory() {
+        if (quickslotInventory == null) {
+            quickslotInventory = new QuickslotInventory(toolbeltStack);
+        }
+
+        return quickslotInventory;
+    }
+
+    public StorageInventory getStorageInventory() {
+        if (storageInventory == null) {
+            storageInventory = new StorageInventory(toolbeltStack);
+        }
+
+        return storageInventory;
+    }
+
+    /**
+     * @return the highest level of the given capability provided by items in the quickslot or storage inventories of the toolbelt
+     */
+    public int getCapabilityLevel(Capability capability) {
+        summarizeCapabilities();
+        return capabilityLevels[capability.ordinal()];
+    }
+
+    /**
+     * @return all capabilities provided by items in the quickslot or storage inventories of the toolbelt
+     */
+    public Set<Capability> getCapabilities() {
+        summarizeCapabilities();
+        return capabilities;
+    }
+
+    private void summarizeCapabilities() {
+        if (capabilityLevels != null) {
+            return;
+        }
+
+        int[] levels = new int[Capability.values().length];
+        EnumSet<Capability> result = EnumSet.noneOf(Capability.class);
+
+        for (IInventory inventory : new IInventory[] { getQuickslotInventory(), getStorageInventory() }) {
+            for (int i = 0; i < inventory.getSizeInventory(); i++) {
+                ItemStack itemStack = inventory.getStackInSlot(i);
+                if (itemStack.isEmpty()) {
+                    continue;
+                }
+
+                ItemStack replacement = ItemUpgradeRegistry.instance.getReplacement(itemStack);
+                if (!replacement.isEmpty()) {
+                    itemStack = replacement;
+                }
+
+                if (itemStack.getItem() instanceof ICapabilityProvider) {
+                    ICapabilityProvider provider = (ICapabilityProvider) itemStack.getItem();
+                    for (Capability capability : Capability.values()) {
+                        levels[capability.ordinal()] = Math.max(levels[capability.ordinal()],
+                                provider.getCapabilityLevel(itemStack, capability));
+                    }
+                    result.addAll(provider.getCapabilities(itemStack));
+                }
+            }
+        }
+
+        capabilityLevels = levels;
+        capabilities = Collections.unmodifiableSet(result);
+    }
+}
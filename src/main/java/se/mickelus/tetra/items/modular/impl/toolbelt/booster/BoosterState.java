@@ -0,0 +1,208 @@
+package se.mickelus.tetra.items.modular.impl.toolbelt.booster;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import se.mickelus.tetra.NBTHelper;
+import se.mickelus.tetra.data.DataManager;
+import se.mickelus.tetra.items.modular.impl.toolbelt.ModularToolbeltItem;
+
+import static se.mickelus.tetra.items.modular.impl.toolbelt.booster.UtilBooster.*;
+
+/**
+ * Booster state for a player, kept outside of the toolbelt nbt so that the booster can be ticked without writing to the toolbelt
+ * every tick. The state is read from the toolbelt when it's first seen, and is written back when the fuel crosses a threshold, when a
+ * charged boost has been used, when the booster is toggled or when the player logs out. Writing to the toolbelt causes it to be synced
+ * to the client, the client never writes its state and instead reads it again whenever it receives an updated toolbelt.
+ */
+class BoosterState {
+    private static final Cache<PlayerEntity, BoosterState> states = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    // fuel is written to the toolbelt each time it has changed by this much
+    private static final int syncFuelStep = 10;
+
+    private ItemStack itemStack = ItemStack.EMPTY;
+    private String identifier = "";
+    private Object moduleData;
+
+    int level;
+
+    boolean active;
+    boolean charged;
+    int fuel;
+    int buffer;
+    int cooldown;
+
+    private int syncedFuel;
+    private boolean dirty = false;
+
+    /**
+     * Get the booster state for the given player and toolbelt, the state is read from the toolbelt if it has not been seen before.
+     */
+    static BoosterState get(PlayerEntity player, ItemStack toolbeltStack) {
+        BoosterState state = states.getIfPresent(player);
+        if (state == null) {
+            state = new BoosterState();
+            states.put(player, state);
+        }
+
+        state.update(player, toolbeltStack);
+        return state;
+    }
+
+    /**
+     * Writes any pending changes to the toolbelt last seen for the given player, and drops the state. Called when the player no longer
+     * carries a toolbelt or logs out.
+     */
+    static void release(PlayerEntity player) {
+        BoosterState state = states.getIfPresent(player);
+        if (state != null) {
+            if (!player.world.isRemote) {
+                state.write();
+            }
+            states.invalidate(player);
+        }
+    }
+
+    /**
+     * Writes any pending changes to the given stack, if it's the toolbelt last seen for the given player. Dropping the toolbelt splits
+     * it off from the inventory and leaves the stack last seen empty, so the state has to be written to the dropped stack instead.
+     */
+    static void onDropped(PlayerEntity player, ItemStack itemStack) {
+        BoosterState state = states.getIfPresent(player);
+        if (state != null && !player.world.isRemote && itemStack.getItem() instanceof ModularToolbeltItem
+                && !state.identifier.isEmpty() && state.identifier.equals(ModularToolbeltItem.instance.getIdentifier(itemStack))) {
+            state.itemStack = itemStack;
+            state.write();
+        }
+    }
+
+    private void update(PlayerEntity player, ItemStack toolbeltStack) {
+        String identifier = ModularToolbeltItem.instance.getIdentifier(toolbeltStack);
+        if (toolbeltStack != itemStack || !identifier.equals(this.identifier)) {
+            if (!player.world.isRemote && !identifier.isEmpty() && identifier.equals(this.identifier)) {
+                // the same toolbelt has been moved or copied on the server, keep the state and write it to the new stack
+                itemStack = toolbeltStack;
+                dirty = true;
+            } else {
+                if (!player.world.isRemote) {
+                    write();
+                }
+
+                itemStack = toolbeltStack;
+                this.identifier = identifier;
+                read();
+            }
+        }
+
+        if (moduleData != DataManager.moduleData.getData()) {
+            moduleData = DataManager.moduleData.getData();
+            level = getBoosterLevel(itemStack);
+        }
+    }
+
+    private void read() {
+        CompoundNBT tag = itemStack.getTag();
+        if (tag != null) {
+            active = isActive(tag);
+            charged = tag.getBoolean(chargedKey);
+            fuel = getFuel(tag);
+            buffer = tag.getInt(bufferKey);
+            cooldown = tag.getInt(cooldownKey);
+        } else {
+            active = false;
+            charged = false;
+            fuel = 0;
+            buffer = 0;
+            cooldown = 0;
+        }
+
+        // forces the booster level to be resolved for the new toolbelt
+        moduleData = null;
+        syncedFuel = fuel;
+        dirty = false;
+    }
+
+    private void write() {
+        if (!dirty || itemStack.isEmpty()) {
+            return;
+        }
+
+        CompoundNBT tag = NBTHelper.getTag(itemStack);
+        tag.putBoolean(activeKey, active);
+        tag.putBoolean(chargedKey, charged);
+        tag.putInt(fuelKey, fuel);
+        tag.putInt(bufferKey, buffer);
+        tag.putInt(cooldownKey, cooldown);
+
+        syncedFuel = fuel;
+        dirty = false;
+    }
+
+    /**
+     * Writes the state to the toolbelt if it has changed enough for the client to need it, or if forced.
+     */
+    void sync(boolean force) {
+        if (force || crossesThreshold(syncedFuel, fuel)) {
+            write();
+        }
+    }
+
+    private static boolean crossesThreshold(int previous, int current) {
+        return previous / syncFuelStep != current / syncFuelStep
+                || (previous >= fuelCost) != (current >= fuelCost)
+                || (previous >= fuelCostCharged) != (current >= fuelCostCharged)
+                || (previous + fuelRecharge < fuelCapacity) != (current + fuelRecharge < fuelCapacity);
+    }
+
+    void setActive(boolean active, boolean charged) {
+        this.active = active;
+        if (charged) {
+            this.charged = true;
+        }
+        dirty = true;
+    }
+
+    boolean hasFuel(boolean charged) {
+        return fuel >= (charged ? fuelCostCharged : fuelCost);
+    }
+
+    float getFuelPercent() {
+        return fuel * 1F / fuelCapacity;
+    }
+
+    void consumeFuel(boolean charged) {
+        fuel -= charged ? fuelCostCharged : fuelCost;
+        cooldown = cooldownTicks;
+        dirty = true;
+    }
+
+    /**
+     * @return true if gunpowder was taken from the toolbelt to refill the buffer
+     */
+    boolean rechargeFuel() {
+        if (cooldown > 0) {
+            cooldown--;
+            dirty = true;
+        } else if (fuel + fuelRecharge < fuelCapacity) {
+            if (buffer > 0) {
+                fuel += fuelRecharge;
+                buffer--;
+                dirty = true;
+            } else if (consumeGunpowder(itemStack)) {
+                buffer = gunpowderGain;
+                dirty = true;
+                return true;
+            } else {
+                cooldown = cooldownTicks;
+                dirty = true;
+            }
+        }
+
+        return false;
+    }
+}
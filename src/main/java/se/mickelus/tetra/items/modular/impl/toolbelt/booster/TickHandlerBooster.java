@@ -2,11 +2,11 @@ package se.mickelus.tetra.items.modular.impl.toolbelt.booster;
 
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.CompoundNBT;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.item.ItemTossEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
-import se.mickelus.tetra.NBTHelper;
 import se.mickelus.tetra.items.modular.impl.toolbelt.ToolbeltHelper;
 
 public class TickHandlerBooster {
@@ -14,29 +14,48 @@ public class TickHandlerBooster {
     @SubscribeEvent(priority = EventPriority.LOW)
     public void onPlayerTick(TickEvent.PlayerTickEvent event) {
         ItemStack itemStack = ToolbeltHelper.findToolbelt(event.player);
-        int level = UtilBooster.getBoosterLevel(itemStack);
-        if (level > 0) {
-            tickItem(event.player, itemStack, level);
+        if (itemStack.isEmpty()) {
+            BoosterState.release(event.player);
+            return;
         }
+
+        BoosterState state = BoosterState.get(event.player, itemStack);
+        if (state.level > 0) {
+            tickItem(event.player, state);
+        }
+    }
+
+    @SubscribeEvent
+    public void onItemToss(ItemTossEvent event) {
+        BoosterState.onDropped(event.getPlayer(), event.getEntityItem().getItem());
     }
 
-    public void tickItem(PlayerEntity player, ItemStack stack, int level) {
-        CompoundNBT tag = NBTHelper.getTag(stack);
-        boolean charged = tag.getBoolean(UtilBooster.chargedKey);
-        if (!player.isInWater() && UtilBooster.isActive(tag) && UtilBooster.hasFuel(tag, charged)) {
+    @SubscribeEvent
+    public void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        BoosterState.release(event.getPlayer());
+    }
+
+    private void tickItem(PlayerEntity player, BoosterState state) {
+        boolean charged = state.charged;
+        boolean refueled = false;
+        if (!player.isInWater() && state.active && state.hasFuel(charged)) {
             if (charged) {
-                UtilBooster.boostPlayerCharged(player, tag, level);
+                UtilBooster.boostPlayerCharged(player, state.level);
             } else {
-                UtilBooster.boostPlayer(player, tag, level);
+                UtilBooster.boostPlayer(player, state.level);
             }
 
-            UtilBooster.consumeFuel(tag, charged);
+            state.consumeFuel(charged);
         } else {
-            UtilBooster.rechargeFuel(tag, stack);
+            refueled = state.rechargeFuel();
         }
 
         if (charged) {
-            tag.putBoolean(UtilBooster.chargedKey, false);
+            state.charged = false;
+        }
+
+        if (!player.world.isRemote) {
+            state.sync(charged || refueled);
         }
     }
 }
@@ -70,7 +70,7 @@ public class UtilBooster {
         return tag.getInt(fuelKey) * 1F / fuelCapacity;
     }
 
-    public static void boostPlayer(PlayerEntity player, CompoundNBT tag, int level) {
+    public static void boostPlayer(PlayerEntity player, int level) {
         float boostBase = boostStrength + boostStrength * (level - 1) * 0.4f;
         if (player.isElytraFlying()) {
             Vec3d vec3d = player.getLookVec();
@@ -96,7 +96,7 @@ public class UtilBooster {
         }
     }
 
-    public static void boostPlayerCharged(PlayerEntity player, CompoundNBT tag, int level) {
+    public static void boostPlayerCharged(PlayerEntity player, int level) {
         float boostBase = chargedBoostStrength + chargedBoostStrength * (level - 1) * boostLevelMultiplier;
         Vec3d lookVector = player.getLookVec();
 
@@ -121,49 +121,26 @@ public class UtilBooster {
         }
     }
 
-    public static void consumeFuel(CompoundNBT tag, boolean charged) {
-        if (charged) {
-            tag.putInt(fuelKey, tag.getInt(fuelKey) - fuelCostCharged);
-        } else {
-            tag.putInt(fuelKey, tag.getInt(fuelKey) - fuelCost);
-        }
-        tag.putInt(cooldownKey, cooldownTicks);
-    }
-
-    public static void rechargeFuel(CompoundNBT tag, ItemStack itemStack) {
-        int fuel = tag.getInt(fuelKey);
-        int buffer = tag.getInt(bufferKey);
-        int cooldown = tag.getInt(cooldownKey);
-        if (cooldown > 0) {
-            tag.putInt(cooldownKey, cooldown - 1);
-        } else if (fuel + fuelRecharge < fuelCapacity) {
-            if (buffer > 0) {
-                tag.putInt(fuelKey, fuel + fuelRecharge);
-                tag.putInt(bufferKey, buffer - 1);
-            } else {
-                refuelBuffer(tag, itemStack);
-            }
-        }
-    }
-
-    private static void refuelBuffer(CompoundNBT tag, ItemStack itemStack) {
+    /**
+     * Takes one gunpowder from the quickslot or storage inventory of the given toolbelt.
+     * @return true if gunpowder was taken
+     */
+    public static boolean consumeGunpowder(ItemStack itemStack) {
         ToolbeltInventory inventory = new QuickslotInventory(itemStack);
         int index = inventory.getFirstIndexForItem(Items.GUNPOWDER);
         if (index != -1) {
             inventory.decrStackSize(index, 1);
-            tag.putInt(bufferKey, gunpowderGain);
-            return;
+            return true;
         }
 
         inventory = new StorageInventory(itemStack);
         index = inventory.getFirstIndexForItem(Items.GUNPOWDER);
         if (index != -1) {
             inventory.decrStackSize(index, 1);
-            tag.putInt(bufferKey, gunpowderGain);
-            return;
+            return true;
         }
 
-        tag.putInt(cooldownKey, cooldownTicks);
+        return false;
     }
 
     public static boolean isActive(CompoundNBT tag) {
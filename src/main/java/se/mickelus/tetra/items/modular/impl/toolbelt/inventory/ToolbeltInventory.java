@@ -7,6 +7,7 @@ import net.minecraft.inventory.ItemStackHelper;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.INBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraft.util.NonNullList;
 import net.minecraft.util.ResourceLocation;
@@ -36,6 +37,9 @@ public class ToolbeltInventory implements IInventory {
     protected int numSlots = 0;
     protected int maxSize = 0;
 
+    // the tag that the contents were last read from or written to, the inventory is written as a new list on every change
+    private INBT syncedTag;
+
     ItemPredicate predicate = ItemPredicate.ANY;
     public static ItemPredicate potionPredicate = ItemPredicate.ANY;
     public static ItemPredicate quickPredicate = ItemPredicate.ANY;
@@ -77,6 +81,7 @@ public class ToolbeltInventory implements IInventory {
 
 
     public void readFromNBT(CompoundNBT compound) {
+        syncedTag = compound.get(inventoryKey);
         ListNBT items = compound.getList(inventoryKey, Constants.NBT.TAG_COMPOUND);
 
         for (int i = 0; i < items.size(); i++) {
@@ -102,6 +107,17 @@ public class ToolbeltInventory implements IInventory {
         }
 
         tagcompound.put(inventoryKey, items);
+        syncedTag = items;
+    }
+
+    /**
+     * Checks if the toolbelt has been written to by something other than this inventory since the contents were read, e.g. by another
+     * inventory instance or by a packet from the server.
+     * @return true if the contents of this inventory may be out of date
+     */
+    public boolean isStale() {
+        CompoundNBT tag = toolbeltItemStack.getTag();
+        return (tag != null ? tag.get(inventoryKey) : null) != syncedTag;
     }
 
     @Override
@@ -37,6 +37,7 @@ import se.mickelus.tetra.capabilities.CapabilityHelper;
 import se.mickelus.tetra.effects.EarthboundEffect;
 import se.mickelus.tetra.items.modular.ItemModular;
 import se.mickelus.tetra.items.modular.ItemModularHandheld;
+import se.mickelus.tetra.items.modular.ItemModularSnapshot;
 import se.mickelus.tetra.items.modular.impl.toolbelt.ToolbeltHelper;
 import se.mickelus.tetra.items.modular.impl.toolbelt.inventory.QuiverInventory;
 import se.mickelus.tetra.util.CastOptional;
@@ -46,7 +47,6 @@ import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class ItemEffectHandler {
 
@@ -113,6 +113,23 @@ public class ItemEffectHandler {
         instance = this;
     }
 
+    // effects that the combat event handlers react to, items that have none of these are skipped without resolving any levels
+    private static final long[] intuitMask = ItemModularSnapshot.getEffectMask(ItemEffect.intuit);
+    private static final long[] blockingReflectMask = ItemModularSnapshot.getEffectMask(ItemEffect.blockingReflect);
+    private static final long[] quickStrikeMask = ItemModularSnapshot.getEffectMask(ItemEffect.quickStrike);
+    private static final long[] armorMask = ItemModularSnapshot.getEffectMask(ItemEffect.armor, ItemEffect.toughness);
+    private static final long[] damageMask = ItemModularSnapshot.getEffectMask(ItemEffect.armorPenetration, ItemEffect.unarmoredDamage);
+
+    /**
+     * @return the snapshot of the given itemstack if it's a modular item that has any of the effects in the given mask, otherwise null
+     */
+    private static ItemModularSnapshot getEffectSnapshot(ItemStack itemStack, long[] effectMask) {
+        if (itemStack.getItem() instanceof ItemModular) {
+            return ((ItemModular) itemStack.getItem()).getEffectSnapshot(itemStack, effectMask);
+        }
+        return null;
+    }
+
     private int getEffectLevel(ItemStack itemStack, ItemEffect effect) {
         ItemModular item = (ItemModular) itemStack.getItem();
         return item.getEffectLevel(itemStack, effect);
@@ -125,17 +142,17 @@ public class ItemEffectHandler {
 
     @SubscribeEvent(priority=EventPriority.LOW)
     public void onExperienceDrop(LivingExperienceDropEvent event) {
-        Optional.ofNullable(event.getAttackingPlayer())
-                .map(LivingEntity::getHeldItemMainhand)
-                .filter(itemStack -> !itemStack.isEmpty())
-                .filter(itemStack -> itemStack.getItem() instanceof ItemModular)
-                .ifPresent(itemStack -> {
-                    int intuitLevel = getEffectLevel(itemStack, ItemEffect.intuit);
-                    int xp = event.getDroppedExperience();
-                    if (intuitLevel > 0 && xp > 0) {
-                        ((ItemModular) itemStack.getItem()).tickHoningProgression(event.getAttackingPlayer(), itemStack, intuitLevel * xp);
-                    }
-                });
+        PlayerEntity player = event.getAttackingPlayer();
+        if (player == null || event.getDroppedExperience() <= 0) {
+            return;
+        }
+
+        ItemStack itemStack = player.getHeldItemMainhand();
+        ItemModularSnapshot snapshot = getEffectSnapshot(itemStack, intuitMask);
+        if (snapshot != null) {
+            int intuitLevel = snapshot.getEffectLevel(ItemEffect.intuit);
+            ((ItemModular) itemStack.getItem()).tickHoningProgression(player, itemStack, intuitLevel * event.getDroppedExperience());
+        }
     }
 
 
@@ -152,12 +169,13 @@ public class ItemEffectHandler {
                             item.applyUsageEffects(blocker, itemStack, event.getAmount());
                         }
 
-                        if (event.getSource().getImmediateSource() instanceof LivingEntity) {
+                        ItemModularSnapshot snapshot = item.getEffectSnapshot(itemStack, blockingReflectMask);
+                        if (snapshot != null && event.getSource().getImmediateSource() instanceof LivingEntity) {
                             LivingEntity attacker = (LivingEntity) event.getSource().getImmediateSource();
 
-                            if (item.getEffectLevel(itemStack, ItemEffect.blockingReflect) > attacker.getRNG().nextFloat() * 100) {
+                            if (snapshot.getEffectLevel(ItemEffect.blockingReflect) > attacker.getRNG().nextFloat() * 100) {
                                 attacker.attackEntityFrom(new EntityDamageSource("thorns", blocker).setIsThornsDamage(),
-                                        (float) (item.getAbilityBaseDamage(itemStack) * item.getEffectEfficiency(itemStack, ItemEffect.blockingReflect)));
+                                        (float) (item.getAbilityBaseDamage(itemStack) * snapshot.getEffectEfficiency(ItemEffect.blockingReflect)));
                                 item.applyHitEffects(itemStack, attacker, blocker);
                                 ItemModularHandheld.applyEnchantmentHitEffects(itemStack, attacker, blocker);
 
@@ -172,61 +190,54 @@ public class ItemEffectHandler {
 
     @SubscribeEvent
     public void onLivingHurt(LivingHurtEvent event) {
-        Optional.ofNullable(event.getSource().getTrueSource())
-                .filter(entity -> entity instanceof LivingEntity)
-                .map(entity -> (LivingEntity) entity)
-                .map(LivingEntity::getHeldItemMainhand)
-                .filter(itemStack -> itemStack.getItem() instanceof ItemModular)
-                .ifPresent(itemStack -> {
-                    int quickStrikeLevel = getEffectLevel(itemStack, ItemEffect.quickStrike);
-                    if (quickStrikeLevel > 0) {
-                        float maxDamage = (float) ((LivingEntity) event.getSource().getTrueSource())
-                                .getAttribute(SharedMonsterAttributes.ATTACK_DAMAGE).getValue();
-                        float multiplier = quickStrikeLevel * 0.05f + 0.2f;
-
-                        if (event.getAmount() <  multiplier * maxDamage) {
-                            event.setAmount(multiplier * maxDamage);
-                        }
-                    }
-                });
+        if (event.getSource().getTrueSource() instanceof LivingEntity) {
+            LivingEntity attacker = (LivingEntity) event.getSource().getTrueSource();
+            ItemModularSnapshot snapshot = getEffectSnapshot(attacker.getHeldItemMainhand(), quickStrikeMask);
+            if (snapshot != null) {
+                float maxDamage = (float) attacker.getAttribute(SharedMonsterAttributes.ATTACK_DAMAGE).getValue();
+                float multiplier = snapshot.getEffectLevel(ItemEffect.quickStrike) * 0.05f + 0.2f;
+
+                if (event.getAmount() <  multiplier * maxDamage) {
+                    event.setAmount(multiplier * maxDamage);
+                }
+            }
+        }
 
-        if (!event.getSource().isUnblockable()) {
-            Optional.ofNullable(event.getEntityLiving())
-                    .map(entity -> Stream.of(entity.getHeldItemMainhand(), entity.getHeldItemOffhand()))
-                    .orElseGet(Stream::empty)
-                    .filter(itemStack -> !itemStack.isEmpty())
-                    .filter(itemStack -> itemStack.getItem() instanceof ItemModularHandheld)
-                    .forEach(itemStack -> {
-                        ItemModularHandheld item = (ItemModularHandheld) itemStack.getItem();
-                        if (item.getEffectLevel(itemStack, ItemEffect.armor) > 0 || item.getEffectLevel(itemStack, ItemEffect.toughness) > 0) {
-                            int reducedAmount = (int) Math.ceil(event.getAmount() - CombatRules.getDamageAfterAbsorb(event.getAmount(),
-                                    (float) event.getEntityLiving().getTotalArmorValue(),
-                                    (float) event.getEntityLiving().getAttribute(SharedMonsterAttributes.ARMOR_TOUGHNESS).getValue()));
-                            item.applyUsageEffects(event.getEntityLiving(), itemStack, reducedAmount);
-                            item.applyDamage(reducedAmount, itemStack, event.getEntityLiving());
-                        }
-                    });
+        if (!event.getSource().isUnblockable() && event.getEntityLiving() != null) {
+            applyArmorUsage(event, event.getEntityLiving().getHeldItemMainhand());
+            applyArmorUsage(event, event.getEntityLiving().getHeldItemOffhand());
+        }
+    }
+
+    private void applyArmorUsage(LivingHurtEvent event, ItemStack itemStack) {
+        if (itemStack.getItem() instanceof ItemModularHandheld && getEffectSnapshot(itemStack, armorMask) != null) {
+            ItemModularHandheld item = (ItemModularHandheld) itemStack.getItem();
+            int reducedAmount = (int) Math.ceil(event.getAmount() - CombatRules.getDamageAfterAbsorb(event.getAmount(),
+                    (float) event.getEntityLiving().getTotalArmorValue(),
+                    (float) event.getEntityLiving().getAttribute(SharedMonsterAttributes.ARMOR_TOUGHNESS).getValue()));
+            item.applyUsageEffects(event.getEntityLiving(), itemStack, reducedAmount);
+            item.applyDamage(reducedAmount, itemStack, event.getEntityLiving());
         }
     }
 
     @SubscribeEvent
     public void onLivingDamage(LivingDamageEvent event) {
-        Optional.ofNullable(event.getSource().getTrueSource())
-                .filter(entity -> entity instanceof PlayerEntity)
-                .map(entity -> (LivingEntity) entity)
-                .map(LivingEntity::getHeldItemMainhand)
-                .filter(itemStack -> itemStack.getItem() instanceof ItemModular)
-                .ifPresent(itemStack -> {
-                    int penetratingLevel = getEffectLevel(itemStack, ItemEffect.armorPenetration);
-                    if (penetratingLevel > 0 && event.getAmount() < penetratingLevel) {
-                        event.setAmount(penetratingLevel);
-                    }
+        if (!(event.getSource().getTrueSource() instanceof PlayerEntity)) {
+            return;
+        }
 
-                    int unarmoredBonusLevel = getEffectLevel(itemStack, ItemEffect.unarmoredDamage);
-                    if (unarmoredBonusLevel > 0 && event.getEntityLiving().getTotalArmorValue() == 0) {
-                        event.setAmount(event.getAmount()  + unarmoredBonusLevel);
-                    }
-                });
+        ItemModularSnapshot snapshot = getEffectSnapshot(((PlayerEntity) event.getSource().getTrueSource()).getHeldItemMainhand(), damageMask);
+        if (snapshot != null) {
+            int penetratingLevel = snapshot.getEffectLevel(ItemEffect.armorPenetration);
+            if (penetratingLevel > 0 && event.getAmount() < penetratingLevel) {
+                event.setAmount(penetratingLevel);
+            }
+
+            int unarmoredBonusLevel = snapshot.getEffectLevel(ItemEffect.unarmoredDamage);
+            if (unarmoredBonusLevel > 0 && event.getEntityLiving().getTotalArmorValue() == 0) {
+                event.setAmount(event.getAmount()  + unarmoredBonusLevel);
+            }
+        }
     }
 
 
@@ -1,6 +1,7 @@
 package se.mickelus.tetra.module;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import net.minecraft.client.resources.I18n;
 import net.minecraft.entity.LivingEntity;
@@ -11,6 +12,7 @@ import se.mickelus.tetra.ConfigHandler;
 import se.mickelus.tetra.NBTHelper;
 import se.mickelus.tetra.capabilities.Capability;
 import se.mickelus.tetra.capabilities.ICapabilityProvider;
+import se.mickelus.tetra.items.modular.ItemModular;
 import se.mickelus.tetra.module.data.ModuleVariantData;
 import se.mickelus.tetra.module.data.ModuleModel;
 import se.mickelus.tetra.module.data.TweakData;
@@ -18,9 +20,15 @@ import se.mickelus.tetra.module.schema.RepairDefinition;
 
 public abstract class ItemModule implements ICapabilityProvider {
 
+    private static final ModuleVariantData defaultData = new ModuleVariantData();
+    private static final TweakData[] noTweaks = new TweakData[0];
+
     protected ModuleVariantData[] variantData = new ModuleVariantData[0];
+    private Map<String, ModuleVariantData> variantIndex = Collections.emptyMap();
 
     protected TweakData[] tweaks = new TweakData[0];
+    private Map<String, TweakData[]> variantTweaks = Collections.emptyMap();
+    protected boolean hasImprovementTweaks = false;
 
     protected final String slotTagKey;
     protected final String moduleKey;
@@ -51,6 +59,8 @@ public abstract class ItemModule implements ICapabilityProvider {
 
         tag.putString(slotTagKey, moduleKey);
         tag.putString(this.variantTagKey, variantKey);
+
+        ItemModular.updateIdentifier(targetStack);
     }
 
     public ItemStack[] removeModule(ItemStack targetStack) {
@@ -59,6 +69,8 @@ public abstract class ItemModule implements ICapabilityProvider {
         tag.remove(slotTagKey);
         tag.remove(variantTagKey);
 
+        ItemModular.updateIdentifier(targetStack);
+
         return new ItemStack[0];
     }
 
@@ -68,6 +80,37 @@ public abstract class ItemModule implements ICapabilityProvider {
         return variantData;
     }
 
+    /**
+     * Sets the variants of this module and indexes them by key, should be called when the module is set up from module data.
+     * @param variantData An array of module variants, if several variants share the same key the first one will be used
+     */
+    protected void setVariantData(ModuleVariantData[] variantData) {
+        this.variantData = variantData;
+
+        Map<String, ModuleVariantData> index = new HashMap<>(variantData.length);
+        for (ModuleVariantData data : variantData) {
+            index.putIfAbsent(data.key, data);
+        }
+        variantIndex = index;
+    }
+
+    /**
+     * Sets the tweaks available for this module and indexes them by variant, should be called when the module is set up from
+     * module data.
+     * @param tweaks An array of tweaks
+     */
+    protected void setTweaks(TweakData[] tweaks) {
+        this.tweaks = tweaks;
+
+        variantTweaks = Arrays.stream(tweaks)
+                .filter(tweak -> tweak.variant != null)
+                .collect(Collectors.groupingBy(tweak -> tweak.variant,
+                        Collectors.collectingAndThen(Collectors.toList(), list -> list.toArray(new TweakData[0]))));
+
+        hasImprovementTweaks = Arrays.stream(tweaks)
+                .anyMatch(tweak -> tweak.improvement != null);
+    }
+
     public ModuleVariantData getVariantData(ItemStack itemStack) {
         CompoundNBT tag = NBTHelper.getTag(itemStack);
         String variantKey = tag.getString(variantTagKey);
@@ -76,13 +119,19 @@ public abstract class ItemModule implements ICapabilityProvider {
     }
 
     public ModuleVariantData getVariantData(String variantKey) {
-        return Arrays.stream(variantData)
-                .filter(moduleData -> moduleData.key.equals(variantKey))
-                .findAny().orElseGet(this::getDefaultData);
+        ModuleVariantData data = variantIndex.get(variantKey);
+        if (data != null) {
+            return data;
+        }
+        return getDefaultData();
     }
 
+    /**
+     * Returns the first variant of this module, or a shared empty variant if this module has no variants. The returned data should not
+     * be modified.
+     */
     public ModuleVariantData getDefaultData() {
-        return variantData.length > 0 ? variantData[0] : new ModuleVariantData();
+        return variantData.length > 0 ? variantData[0] : defaultData;
     }
 
     public String getName(ItemStack itemStack) {
@@ -220,16 +269,12 @@ public abstract class ItemModule implements ICapabilityProvider {
 
     public boolean isTweakable(ItemStack itemStack) {
         String variant = NBTHelper.getTag(itemStack).getString(this.variantTagKey);
-        return Arrays.stream(tweaks)
-                .anyMatch(data -> variant.equals(data.variant));
+        return variantTweaks.containsKey(variant);
     }
 
     public TweakData[] getTweaks(ItemStack itemStack) {
         CompoundNBT tag = NBTHelper.getTag(itemStack);
-        String variant = tag.getString(this.variantTagKey);
-        return Arrays.stream(tweaks)
-                .filter(tweak -> variant.equals(tweak.variant))
-                .toArray(TweakData[]::new);
+        return variantTweaks.getOrDefault(tag.getString(this.variantTagKey), noTweaks);
     }
 
     public boolean hasTweak(ItemStack itemStack, String tweakKey) {
@@ -244,6 +289,7 @@ public abstract class ItemModule implements ICapabilityProvider {
 
     public void setTweakStep(ItemStack itemStack, String tweakKey, int step) {
         NBTHelper.getTag(itemStack).putInt(slotTagKey + ":" + tweakKey, step);
+        ItemModular.updateIdentifier(itemStack);
     }
 
     public double getDamageModifier(ItemStack itemStack) {
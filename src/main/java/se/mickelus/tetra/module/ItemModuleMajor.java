@@ -3,9 +3,11 @@ package se.mickelus.tetra.module;
 
 import com.google.common.collect.Streams;
 import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
+import net.minecraftforge.common.util.Constants;
 import org.apache.commons.lang3.ArrayUtils;
 import se.mickelus.tetra.ConfigHandler;
 import se.mickelus.tetra.NBTHelper;
@@ -19,14 +21,28 @@ import se.mickelus.tetra.module.improvement.SettlePacket;
 import se.mickelus.tetra.network.PacketHandler;
 import se.mickelus.tetra.util.CastOptional;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public abstract class ItemModuleMajor extends ItemModule {
 
-    protected ImprovementData[] improvements = new ImprovementData[0];
+    private static final ImprovementData[] noImprovements = new ImprovementData[0];
+
+    /**
+     * Improvements are stored in a compound per slot, under this key in the root tag of the item. Improvements used to be stored as
+     * "slot:improvement" entries in the root tag, slots that do not yet have a compound are read in that format and migrated when
+     * their improvements are modified.
+     */
+    public static final String improvementsKey = "improvements";
+
+    protected ImprovementData[] improvements = noImprovements;
+
+    // distinct improvement keys in the order they first appear in the module data, with the legacy tag key and the improvements
+    // indexed by level for each key
+    private String[] improvementKeys = new String[0];
+    private String[] legacyImprovementKeys = new String[0];
+    private ImprovementData[][] improvementLevels = new ImprovementData[0][];
+    private Map<String, ImprovementData[]> improvementIndex = Collections.emptyMap();
 
     public static final String settleImprovement = "settled";
     public static final String arrestedImprovement = "arrested";
@@ -113,47 +129,155 @@ public abstract class ItemModuleMajor extends ItemModule {
         NBTHelper.getTag(itemStack).remove(String.format(settleProgressKey, getSlot()));
     }
 
+    /**
+     * Sets the improvements that this module accepts and indexes them by key and level, should be called when the module is set up
+     * from module data.
+     * @param improvements An array of improvements, if several improvements share the same key and level the first one will be used
+     */
+    protected void setImprovements(ImprovementData[] improvements) {
+        this.improvements = improvements;
+
+        Map<String, ImprovementData[]> index = new LinkedHashMap<>();
+        for (ImprovementData improvement : improvements) {
+            if (improvement.level < 0) {
+                continue;
+            }
+
+            ImprovementData[] levels = index.getOrDefault(improvement.key, noImprovements);
+            if (levels.length <= improvement.level) {
+                levels = Arrays.copyOf(levels, improvement.level + 1);
+            }
+
+            if (levels[improvement.level] == null) {
+                levels[improvement.level] = improvement;
+            }
+
+            index.put(improvement.key, levels);
+        }
+
+        improvementIndex = index;
+        improvementKeys = index.keySet().toArray(new String[0]);
+        legacyImprovementKeys = Arrays.stream(improvementKeys)
+                .map(key -> slotTagKey + ":" + key)
+                .toArray(String[]::new);
+        improvementLevels = index.values().toArray(new ImprovementData[0][]);
+    }
+
+    private static ImprovementData getLevel(ImprovementData[] levels, int level) {
+        if (levels != null && level >= 0 && level < levels.length) {
+            return levels[level];
+        }
+        return null;
+    }
+
+    /**
+     * @return the improvement compound for this slot, or null if the improvements for this slot are still stored in the legacy format
+     */
+    private CompoundNBT getImprovementTag(CompoundNBT tag) {
+        if (tag.contains(improvementsKey, Constants.NBT.TAG_COMPOUND)) {
+            CompoundNBT improvementsTag = tag.getCompound(improvementsKey);
+            if (improvementsTag.contains(slotTagKey, Constants.NBT.TAG_COMPOUND)) {
+                return improvementsTag.getCompound(slotTagKey);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the improvement compound for this slot, creating it if it does not exist. Improvements stored in the legacy format are moved
+     * into the compound.
+     */
+    private CompoundNBT getOrMigrateImprovementTag(CompoundNBT tag) {
+        CompoundNBT improvementsTag = tag.getCompound(improvementsKey);
+        if (!tag.contains(improvementsKey, Constants.NBT.TAG_COMPOUND)) {
+            tag.put(improvementsKey, improvementsTag);
+        }
+
+        if (improvementsTag.contains(slotTagKey, Constants.NBT.TAG_COMPOUND)) {
+            return improvementsTag.getCompound(slotTagKey);
+        }
+
+        CompoundNBT slotTag = new CompoundNBT();
+        for (int i = 0; i < improvementKeys.length; i++) {
+            if (tag.contains(legacyImprovementKeys[i])) {
+                slotTag.putInt(improvementKeys[i], tag.getInt(legacyImprovementKeys[i]));
+                tag.remove(legacyImprovementKeys[i]);
+            }
+        }
+        improvementsTag.put(slotTagKey, slotTag);
+
+        return slotTag;
+    }
+
     public int getImprovementLevel(ItemStack itemStack, String improvementKey) {
         CompoundNBT tag = NBTHelper.getTag(itemStack);
-        if (tag.contains(slotTagKey + ":" + improvementKey)) {
+        CompoundNBT improvementTag = getImprovementTag(tag);
+        if (improvementTag != null) {
+            if (improvementTag.contains(improvementKey)) {
+                return improvementTag.getInt(improvementKey);
+            }
+        } else if (tag.contains(slotTagKey + ":" + improvementKey)) {
             return tag.getInt(slotTagKey + ":" + improvementKey);
         }
         return -1;
     }
 
     public ImprovementData getImprovement(ItemStack itemStack, String improvementKey) {
-        CompoundNBT tag = NBTHelper.getTag(itemStack);
-        return Arrays.stream(improvements)
-                .filter(improvement -> improvementKey.equals(improvement.key))
-                .filter(improvement -> tag.contains(slotTagKey + ":" + improvement.key))
-                .filter(improvement -> improvement.level == tag.getInt(slotTagKey + ":" + improvement.key))
-                .findAny()
-                .orElse(null);
+        ImprovementData[] levels = improvementIndex.get(improvementKey);
+        if (levels == null) {
+            return null;
+        }
+
+        return getLevel(levels, getImprovementLevel(itemStack, improvementKey));
     }
 
     public ImprovementData[] getImprovements(ItemStack itemStack) {
+        if (improvementKeys.length == 0) {
+            return noImprovements;
+        }
+
         CompoundNBT tag = NBTHelper.getTag(itemStack);
-        return Arrays.stream(improvements)
-            .filter(improvement -> tag.contains(slotTagKey + ":" + improvement.key))
-            .filter(improvement -> improvement.level == tag.getInt(slotTagKey + ":" + improvement.key))
-            .toArray(ImprovementData[]::new);
+        CompoundNBT improvementTag = getImprovementTag(tag);
+
+        ImprovementData[] result = null;
+        int count = 0;
+        for (int i = 0; i < improvementKeys.length; i++) {
+            ImprovementData improvement = null;
+            if (improvementTag != null) {
+                if (improvementTag.contains(improvementKeys[i])) {
+                    improvement = getLevel(improvementLevels[i], improvementTag.getInt(improvementKeys[i]));
+                }
+            } else if (tag.contains(legacyImprovementKeys[i])) {
+                improvement = getLevel(improvementLevels[i], tag.getInt(legacyImprovementKeys[i]));
+            }
+
+            if (improvement != null) {
+                if (result == null) {
+                    result = new ImprovementData[improvementKeys.length - i];
+                }
+                result[count++] = improvement;
+            }
+        }
+
+        if (result == null) {
+            return noImprovements;
+        }
+
+        return count == result.length ? result : Arrays.copyOf(result, count);
     }
 
     public boolean acceptsImprovement(String improvementKey) {
-        return Arrays.stream(improvements)
-                .map(improvement -> improvement.key)
-                .anyMatch(improvementKey::equals);
+        return improvementIndex.containsKey(improvementKey);
     }
 
     public boolean acceptsImprovementLevel(String improvementKey, int level) {
-        return Arrays.stream(improvements)
-                .filter(improvement -> improvementKey.equals(improvement.key))
-                .anyMatch(improvement -> level == improvement.level);
+        return getLevel(improvementIndex.get(improvementKey), level) != null;
     }
 
     public void addImprovement(ItemStack itemStack, String improvementKey, int level) {
         removeCollidingImprovements(itemStack, improvementKey, level);
-        NBTHelper.getTag(itemStack).putInt(slotTagKey + ":" + improvementKey, level);
+        getOrMigrateImprovementTag(NBTHelper.getTag(itemStack)).putInt(improvementKey, level);
+        ItemModular.updateIdentifier(itemStack);
     }
 
     public static void addImprovement(ItemStack itemStack, String slot, String improvement, int level) {
@@ -179,11 +303,18 @@ public abstract class ItemModuleMajor extends ItemModule {
     }
 
     public static void removeImprovement(ItemStack itemStack, String slot, String improvement) {
-        NBTHelper.getTag(itemStack).remove(slot + ":" + improvement);
+        CompoundNBT tag = NBTHelper.getTag(itemStack);
+        tag.getCompound(improvementsKey).getCompound(slot).remove(improvement);
+        tag.remove(slot + ":" + improvement);
+        ItemModular.updateIdentifier(itemStack);
     }
 
     @Override
     public TweakData[] getTweaks(ItemStack itemStack) {
+        if (!hasImprovementTweaks) {
+            return super.getTweaks(itemStack);
+        }
+
         CompoundNBT tag = NBTHelper.getTag(itemStack);
         String variant = tag.getString(this.variantTagKey);
         String[] improvementKeys = Arrays.stream(getImprovements(itemStack))
@@ -194,17 +325,33 @@ public abstract class ItemModuleMajor extends ItemModule {
                 .toArray(TweakData[]::new);
     }
 
+    @Override
+    public void addModule(ItemStack targetStack, String variantKey, PlayerEntity player) {
+        super.addModule(targetStack, variantKey, player);
+
+        // set up the improvement compound right away, so that improvements for new items are never looked up in the legacy format
+        getOrMigrateImprovementTag(NBTHelper.getTag(targetStack));
+    }
+
     @Override
     public ItemStack[] removeModule(ItemStack targetStack) {
         ItemStack[] salvage = super.removeModule(targetStack);
 
         CompoundNBT tag = NBTHelper.getTag(targetStack);
-        Arrays.stream(improvements)
-            .map(improvement -> slotTagKey + ":" + improvement.key)
-            .forEach(tag::remove);
+        Arrays.stream(legacyImprovementKeys).forEach(tag::remove);
+
+        if (tag.contains(improvementsKey, Constants.NBT.TAG_COMPOUND)) {
+            CompoundNBT improvementsTag = tag.getCompound(improvementsKey);
+            improvementsTag.remove(slotTagKey);
+            if (improvementsTag.isEmpty()) {
+                tag.remove(improvementsKey);
+            }
+        }
 
         clearProgression(targetStack);
 
+        ItemModular.updateIdentifier(targetStack);
+
         return salvage;
     }
 
@@ -1,8 +1,10 @@
 package se.mickelus.tetra.module;
 
+import com.google.common.collect.ImmutableMap;
 import net.minecraft.enchantment.Enchantment;
 import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.ResourceLocation;
 import org.apache.logging.log4j.LogManager;
@@ -14,41 +16,133 @@ import se.mickelus.tetra.module.data.EnchantmentMapping;
 import se.mickelus.tetra.module.schema.UpgradeSchema;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ItemUpgradeRegistry {
     private static final Logger logger = LogManager.getLogger();
 
     public static ItemUpgradeRegistry instance;
 
+    private static final EnchantmentMapping[] emptyMappings = new EnchantmentMapping[0];
+
     private List<BiFunction<ItemStack, ItemStack, ItemStack>> replacementHooks;
     private List<ReplacementDefinition> replacementDefinitions;
 
+    // candidate replacement definitions per item, in order and cut off after the first that is certain to match. Definitions with
+    // predicates that depend on more than the item (e.g. nbt predicates) are kept as candidates for all items. Empty for items that are
+    // never replaced
+    private Map<Item, ReplacementDefinition[]> replacementCandidates;
+
+    // enchantment mappings indexed in both directions, mappings that only apply one way are only present in one of the maps
+    private Map<String, EnchantmentMapping[]> improvementMappings;
+    private Map<Enchantment, EnchantmentMapping[]> enchantmentMappings;
+
     public ItemUpgradeRegistry() {
         instance = this;
         replacementHooks = new ArrayList<> ();
 
         replacementDefinitions = Collections.emptyList();
-        DataManager.replacementData.onReload(() -> {
-            replacementDefinitions = DataManager.replacementData.getData().values().stream()
-                    .flatMap(Arrays::stream)
-                    .filter(replacementDefinition -> replacementDefinition.predicate != null)
-                    .collect(Collectors.toList());
-        });
+        replacementCandidates = new ConcurrentHashMap<>();
+        DataManager.replacementData.onReload(this::setupReplacements);
+
+        improvementMappings = Collections.emptyMap();
+        enchantmentMappings = Collections.emptyMap();
+        DataManager.enchantmentData.onReload(this::setupEnchantmentMappings);
+    }
+
+    private void setupReplacements() {
+        replacementDefinitions = DataManager.replacementData.getData().values().stream()
+                .flatMap(Arrays::stream)
+                .filter(replacementDefinition -> replacementDefinition.predicate != null)
+                .collect(Collectors.toList());
+
+        replacementCandidates = new ConcurrentHashMap<>();
+    }
+
+    private ReplacementDefinition[] getReplacementCandidates(Item item) {
+        return replacementCandidates.computeIfAbsent(item, this::findReplacementCandidates);
+    }
+
+    /**
+     * Checks if there are replacement definitions that could apply to the given item, predicates that depend on more than the item are
+     * not tested. Items without candidates are never replaced, regardless of their damage or nbt.
+     * @param item An item
+     * @return true if some itemstack of the given item could have a replacement
+     */
+    public boolean hasReplacementCandidates(Item item) {
+        return getReplacementCandidates(item).length > 0;
+    }
+
+    private ReplacementDefinition[] findReplacementCandidates(Item item) {
+        ItemStack defaultStack = item.getDefaultInstance();
+        List<ReplacementDefinition> result = new ArrayList<>();
+
+        // keeps the order of the definitions, since the first matching definition is used
+        for (ReplacementDefinition replacementDefinition : replacementDefinitions) {
+            if (replacementDefinition.predicateItem != null) {
+                if (replacementDefinition.predicateItem == item) {
+                    result.add(replacementDefinition);
+                    break;
+                }
+            } else if (!replacementDefinition.itemOnlyPredicate) {
+                result.add(replacementDefinition);
+            } else if (replacementDefinition.predicate.test(defaultStack)) {
+                result.add(replacementDefinition);
+                break;
+            }
+        }
+
+        return result.toArray(new ReplacementDefinition[0]);
+    }
+
+    private void setupEnchantmentMappings() {
+        Map<String, List<EnchantmentMapping>> improvements = new LinkedHashMap<>();
+        Map<Enchantment, List<EnchantmentMapping>> enchantments = new LinkedHashMap<>();
+
+        DataManager.enchantmentData.getData().values().stream()
+                .flatMap(Arrays::stream)
+                .filter(mapping -> mapping.enchantment != null)
+                .forEach(mapping -> {
+                    // mappings without an improvement can only be used to extract enchantments
+                    if (mapping.apply && mapping.improvement != null) {
+                        improvements.computeIfAbsent(mapping.improvement, key -> new ArrayList<>()).add(mapping);
+                    }
+
+                    if (mapping.extract) {
+                        enchantments.computeIfAbsent(mapping.enchantment, key -> new ArrayList<>()).add(mapping);
+                    }
+                });
+
+        improvementMappings = improvements.entrySet().stream()
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, entry -> entry.getValue().toArray(new EnchantmentMapping[0])));
+        enchantmentMappings = enchantments.entrySet().stream()
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, entry -> entry.getValue().toArray(new EnchantmentMapping[0])));
     }
 
+    /**
+     * Get schemas that are applicable for the given item and visible to the given player. Schemas that cannot be applied to any slot
+     * of the item are not included.
+     * @param player The player
+     * @param itemStack The target itemstack
+     * @return An array of schemas
+     */
     public UpgradeSchema[] getAvailableSchemas(PlayerEntity player, ItemStack itemStack) {
-        return SchemaRegistry.instance.getAllSchemas().stream()
-                .filter(upgradeSchema -> playerHasSchema(player, itemStack, upgradeSchema))
+        // visibility may depend on the contents of the players inventory, so that is checked last
+        return Arrays.stream(SchemaRegistry.instance.getCandidateSchemas(itemStack.getItem()))
                 .filter(upgradeSchema -> upgradeSchema.isApplicableForItem(itemStack))
+                .filter(upgradeSchema -> playerHasSchema(player, itemStack, upgradeSchema))
                 .toArray(UpgradeSchema[]::new);
     }
 
     public UpgradeSchema[] getSchemas(String slot) {
-        return SchemaRegistry.instance.getAllSchemas().stream()
-                .filter(upgradeSchema -> upgradeSchema.isApplicableForSlot(slot, ItemStack.EMPTY))
+        return Stream.concat(
+                Arrays.stream(SchemaRegistry.instance.getIndexedSchemas(slot)),
+                Arrays.stream(SchemaRegistry.instance.getUnindexedSchemas())
+                        .filter(upgradeSchema -> upgradeSchema.isApplicableForSlot(slot, ItemStack.EMPTY)))
                 .toArray(UpgradeSchema[]::new);
     }
 
@@ -76,8 +170,8 @@ public class ItemUpgradeRegistry {
      * @return The modular counterpart to the given item, or an empty itemstack if there is none
      */
     public ItemStack getReplacement(ItemStack itemStack) {
-        for (ReplacementDefinition replacementDefinition: replacementDefinitions) {
-            if (replacementDefinition.predicate.test(itemStack)) {
+        for (ReplacementDefinition replacementDefinition: getReplacementCandidates(itemStack.getItem())) {
+            if (replacementDefinition.itemOnlyPredicate || replacementDefinition.predicate.test(itemStack)) {
                 ItemStack replacementStack = replacementDefinition.itemStack.copy();
                 replacementStack.setDamage(itemStack.getDamage());
                 transferEnchantments(itemStack, replacementStack);
@@ -96,9 +190,16 @@ public class ItemUpgradeRegistry {
         if (modularStack.getItem() instanceof ItemModular) {
             ItemModular item = (ItemModular) modularStack.getItem();
             Map<Enchantment, Integer> enchantments = EnchantmentHelper.getEnchantments(sourceStack);
+            if (enchantments.isEmpty()) {
+                return;
+            }
+
+            ItemModuleMajor[] majorModules = Arrays.stream(item.getMajorModules(modularStack))
+                    .filter(Objects::nonNull)
+                    .toArray(ItemModuleMajor[]::new);
             for (Map.Entry<Enchantment, Integer> entry : enchantments.entrySet()) {
-                for (EnchantmentMapping mapping: ItemUpgradeRegistry.instance.getEnchantmentMappings(entry.getKey())) {
-                    ItemModuleMajor[] modules = Arrays.stream(item.getMajorModules(modularStack))
+                for (EnchantmentMapping mapping: getEnchantmentMappings(entry.getKey())) {
+                    ItemModuleMajor[] modules = Arrays.stream(majorModules)
                             .filter(module -> module.acceptsImprovement(mapping.improvement))
                             .toArray(ItemModuleMajor[]::new);
                     if (modules.length > 0) {
@@ -121,26 +222,24 @@ public class ItemUpgradeRegistry {
         }
     }
 
+    /**
+     * @param improvement An improvement key
+     * @return Mappings that apply enchantments for the given improvement, the returned array should not be modified
+     */
     public EnchantmentMapping[] getEnchantmentMappings(String improvement) {
-        return DataManager.enchantmentData.getData().values().stream()
-                .flatMap(Arrays::stream)
-                .filter(mapping -> mapping.enchantment != null)
-                .filter(mapping -> improvement.equals(mapping.improvement))
-                .filter(mapping -> mapping.apply)
-                .toArray(EnchantmentMapping[]::new);
+        return improvementMappings.getOrDefault(improvement, emptyMappings);
     }
 
+    /**
+     * @param enchantment An enchantment
+     * @return Mappings that extract improvements from the given enchantment, the returned array should not be modified
+     */
     public EnchantmentMapping[] getEnchantmentMappings(Enchantment enchantment) {
-        return DataManager.enchantmentData.getData().values().stream()
-                .flatMap(Arrays::stream)
-                .filter(mapping -> mapping.enchantment != null)
-                .filter(mapping -> enchantment.equals(mapping.enchantment))
-                .filter(mapping -> mapping.extract)
-                .toArray(EnchantmentMapping[]::new);
+        return enchantmentMappings.getOrDefault(enchantment, emptyMappings);
     }
 
     public ItemModule getModule(String key) {
-        return ModuleRegistry.instance.getModule(new ResourceLocation(TetraMod.MOD_ID, key));
+        return ModuleRegistry.instance.getModule(key);
     }
 
     public Collection<ItemModule> getAllModules() {
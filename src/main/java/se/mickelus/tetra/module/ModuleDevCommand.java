@@ -1,5 +1,6 @@
 package se.mickelus.tetra.module;
 
+import com.google.common.cache.CacheStats;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
@@ -19,6 +20,7 @@ import net.minecraft.world.World;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import se.mickelus.tetra.items.modular.ItemModular;
+import se.mickelus.tetra.items.modular.ItemModularHandheld;
 import se.mickelus.tetra.module.data.ModuleVariantData;
 
 import java.util.concurrent.CompletableFuture;
@@ -29,6 +31,8 @@ public class ModuleDevCommand {
     public static void register(CommandDispatcher<CommandSource> dispatcher) {
         dispatcher.register(Commands.literal("tmdev")
                 .requires(source -> source.hasPermissionLevel(2))
+                .then(Commands.literal("attributeCache")
+                        .executes(ModuleDevCommand::printAttributeCacheStats))
                 .then(Commands.argument("item", ItemArgument.item())
                         .then(Commands.argument("module", StringArgumentType.greedyString())
                                 .suggests(ModuleDevCommand::getModuleSuggestions)
@@ -56,6 +60,14 @@ public class ModuleDevCommand {
         return 1;
     }
 
+    private static int printAttributeCacheStats(CommandContext<CommandSource> context) {
+        CacheStats stats = ItemModularHandheld.getAttributeCacheStats();
+        context.getSource().sendFeedback(new StringTextComponent(String.format("Attribute cache: %d hits, %d misses, %.1f%% hit rate",
+                stats.hitCount(), stats.missCount(), stats.hitRate() * 100)), false);
+
+        return 1;
+    }
+
     private static void plopFrame(World world, BlockPos pos, ItemStack itemStack, String label) {
         itemStack.setDisplayName(new StringTextComponent(label));
         ItemFrameEntity itemFrame = new ItemFrameEntity(world, pos, Direction.SOUTH);
@@ -1,16 +1,20 @@
 package se.mickelus.tetra.module;
 
+import com.google.common.collect.ImmutableMap;
 import net.minecraft.util.ResourceLocation;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import se.mickelus.tetra.TetraMod;
+import se.mickelus.tetra.data.DataChanges;
 import se.mickelus.tetra.data.DataManager;
+import se.mickelus.tetra.data.DataStore;
 import se.mickelus.tetra.module.data.ModuleData;
 
 import java.util.*;
 import java.util.function.BiFunction;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ModuleRegistry {
     private static final Logger logger = LogManager.getLogger();
@@ -20,23 +24,112 @@ public class ModuleRegistry {
     private Map<ResourceLocation, BiFunction<ResourceLocation, ModuleData, ItemModule>> moduleConstructors;
     private Map<ResourceLocation, ItemModule> moduleMap;
 
+    // modules in the tetra namespace keyed by path, as referenced from item NBT, allows lookups without constructing resource locations
+    private Map<String, ItemModule> moduleKeyMap;
+
+    // identifiers of the modules created from each module data entry, multislot modules expand into several modules
+    private Map<ResourceLocation, List<ResourceLocation>> expandedIdentifiers;
+
+    private List<Runnable> listeners;
+
+    // set when improvement or tweak data has changed, all modules are recreated once before the reload is complete
+    private boolean dependenciesChanged = false;
+
     public ModuleRegistry() {
         instance = this;
 
         moduleConstructors = new HashMap<>();
         moduleMap = Collections.emptyMap();
+        moduleKeyMap = Collections.emptyMap();
+        expandedIdentifiers = Collections.emptyMap();
+        listeners = new LinkedList<>();
+
+        DataManager.moduleData.onReload(this::onReload);
+        DataManager.improvementData.onReload(() -> onDependencyReload(DataManager.improvementData));
+        DataManager.tweakData.onReload(() -> onDependencyReload(DataManager.tweakData));
+        DataManager.instance.onReloadComplete(this::onReloadComplete);
+    }
+
+    /**
+     * Modules pull in improvement and tweak data when created, so all modules are recreated when either of those stores has changed.
+     * That's deferred until the module store reloads, or until the reload is complete as clients are only sent stores that have changed.
+     */
+    private void onDependencyReload(DataStore<?> dataStore) {
+        if (!dataStore.getChanges().isEmpty()) {
+            dependenciesChanged = true;
+        }
+    }
+
+    private void onReload() {
+        DataChanges changes = DataManager.moduleData.getChanges();
+
+        if (moduleMap.isEmpty() || dependenciesChanged) {
+            setupAllModules();
+        } else if (!changes.isEmpty()) {
+            Map<ResourceLocation, ItemModule> modules = new HashMap<>(moduleMap);
+            Map<ResourceLocation, List<ResourceLocation>> expanded = new HashMap<>(expandedIdentifiers);
+
+            Stream.concat(changes.changed.stream(), changes.removed.stream())
+                    .map(expanded::remove)
+                    .filter(Objects::nonNull)
+                    .forEach(identifiers -> identifiers.forEach(modules::remove));
+
+            Set<ResourceLocation> updated = new HashSet<>(changes.added);
+            updated.addAll(changes.changed);
+            setupModules(DataManager.moduleData.getData(), updated, modules, expanded);
+        }
+    }
+
+    private void onReloadComplete() {
+        if (dependenciesChanged) {
+            setupAllModules();
+        }
+    }
 
-        DataManager.moduleData.onReload(() -> setupModules(DataManager.moduleData.getData()));
+    private void setupAllModules() {
+        dependenciesChanged = false;
+        setupModules(DataManager.moduleData.getData(), DataManager.moduleData.getData().keySet(), new HashMap<>(), new HashMap<>());
     }
 
-    private void setupModules(Map<ResourceLocation, ModuleData> data) {
-        moduleMap = data.entrySet().stream()
+    /**
+     * Creates modules for the given module data entries and adds them to the given maps, then replaces the current set of modules.
+     */
+    private void setupModules(Map<ResourceLocation, ModuleData> data, Set<ResourceLocation> identifiers,
+            Map<ResourceLocation, ItemModule> modules, Map<ResourceLocation, List<ResourceLocation>> expanded) {
+        data.entrySet().stream()
+                .filter(entry -> identifiers.contains(entry.getKey()))
                 .filter(entry -> validateModuleData(entry.getKey(), entry.getValue()))
-                .flatMap(entry -> expandEntry(entry).stream())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> setupModule(entry.getKey(), entry.getValue())
-                ));
+                .forEach(entry -> {
+                    List<ResourceLocation> entryIdentifiers = new ArrayList<>();
+                    for (Pair<ResourceLocation, ModuleData> pair : expandEntry(entry)) {
+                        modules.put(pair.getKey(), setupModule(pair.getKey(), pair.getValue()));
+                        entryIdentifiers.add(pair.getKey());
+                    }
+                    expanded.put(entry.getKey(), entryIdentifiers);
+                });
+
+        ImmutableMap.Builder<String, ItemModule> keyMapBuilder = ImmutableMap.builder();
+        modules.forEach((identifier, module) -> {
+            if (TetraMod.MOD_ID.equals(identifier.getNamespace())) {
+                keyMapBuilder.put(identifier.getPath(), module);
+            }
+        });
+
+        moduleMap = ImmutableMap.copyOf(modules);
+        moduleKeyMap = keyMapBuilder.build();
+        expandedIdentifiers = expanded;
+
+        listeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Listen to modules being recreated. Modules are recreated when module data is reloaded, but also when data pulled in by modules
+     * (e.g. improvements or tweaks) is reloaded, so anything that holds on to modules or data derived from them should listen to this
+     * rather than to the module data store.
+     * @param callback A callback that is run after modules have been recreated
+     */
+    public void onReload(Runnable callback) {
+        listeners.add(callback);
     }
 
     private boolean validateModuleData(ResourceLocation identifier, ModuleData data) {
@@ -95,6 +188,23 @@ public class ModuleRegistry {
         return moduleMap.get(identifier);
     }
 
+    /**
+     * Get a module in the tetra namespace by its key, the key being the path of the module identifier. This is what's stored in the
+     * slots of modular items and is cheaper than {@link #getModule(ResourceLocation)} as no resource location has to be constructed.
+     * @param key The path of a module identifier
+     * @return The matching module, or null if no such module exists
+     */
+    public ItemModule getModule(String key) {
+        return moduleKeyMap.get(key);
+    }
+
+    /**
+     * @return the keys of all modules in the tetra namespace, as used by {@link #getModule(String)}
+     */
+    public Set<String> getModuleKeys() {
+        return moduleKeyMap.keySet();
+    }
+
     public Collection<ItemModule> getAllModules() {
         return moduleMap.values();
     }
@@ -29,15 +29,15 @@ public class MultiSlotModule extends ItemModuleMajor {
 
         renderLayer = data.renderLayer;
 
-        variantData = data.variants;
+        setVariantData(data.variants);
 
         if (data.improvements.length > 0) {
-            improvements = Arrays.stream(data.improvements)
+            setImprovements(Arrays.stream(data.improvements)
                     .map(key -> DataManager.improvementData.getData(key))
                     .filter(Objects::nonNull)
                     .flatMap(Arrays::stream)
                     .filter(Filter.distinct(improvement -> improvement.key + ":" + improvement.level))
-                    .toArray(ImprovementData[]::new);
+                    .toArray(ImprovementData[]::new));
 
             settleMax = Arrays.stream(improvements)
                     .filter(improvement -> improvement.key.equals(settleImprovement))
@@ -49,9 +49,9 @@ public class MultiSlotModule extends ItemModuleMajor {
         if (data.tweakKey != null) {
             TweakData[] tweaks = DataManager.tweakData.getData(data.tweakKey);
             if (tweaks != null) {
-                this.tweaks = tweaks;
+                setTweaks(tweaks);
             } else {
-                this.tweaks = new TweakData[0];
+                setTweaks(new TweakData[0]);
             }
         }
     }
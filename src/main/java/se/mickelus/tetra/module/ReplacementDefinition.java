@@ -1,6 +1,7 @@
 package se.mickelus.tetra.module;
 
 import net.minecraft.advancements.criterion.ItemPredicate;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 
 /**
@@ -34,6 +35,13 @@ public class ReplacementDefinition {
      */
     public ItemPredicate predicate;
 
+    /**
+     * Set if the predicate matches on nothing but an item or an item tag, whether it matches then only depends on the item of a stack.
+     * The item is also set if the predicate matches on nothing but an item. Not part of the json format, derived from the predicate.
+     */
+    public boolean itemOnlyPredicate;
+    public Item predicateItem;
+
     /**
      * The itemstack is generated from the item, modules & improvements json fields, every time a non-modular item
      * is used in a modular manner this itemstack is cloned and used instead of the non-modular item.
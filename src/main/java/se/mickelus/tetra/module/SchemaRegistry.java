@@ -1,32 +1,59 @@
 package se.mickelus.tetra.module;
 
+import com.google.common.collect.Sets;
+import net.minecraft.item.Item;
 import net.minecraft.util.ResourceLocation;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import se.mickelus.tetra.TetraMod;
+import se.mickelus.tetra.data.DataChanges;
 import se.mickelus.tetra.data.DataManager;
+import se.mickelus.tetra.items.modular.ItemModular;
 import se.mickelus.tetra.module.schema.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class SchemaRegistry {
     private static final Logger logger = LogManager.getLogger();
 
+    private static final UpgradeSchema[] emptySchemas = new UpgradeSchema[0];
+
     public static SchemaRegistry instance;
 
     private Map<ResourceLocation, UpgradeSchema> schemaMap;
     private Map<ResourceLocation, UpgradeSchema> dynamicSchemas;
 
+    // identifiers of the schemas created from each schema definition, multislot schemas expand into several schemas
+    private Map<ResourceLocation, List<ResourceLocation>> expandedIdentifiers;
+
+    // config driven schemas by the slots they apply to. Other schemas do slot checks that depend on the item and are always candidates
+    private Map<String, UpgradeSchema[]> slotIndex;
+    private UpgradeSchema[] unindexedSchemas;
+    private Map<Item, UpgradeSchema[]> itemCandidates;
+
+    // module keys that schemas were last validated against, and whether modules have been recreated since
+    private Set<String> moduleKeys;
+    private boolean modulesChanged = false;
+
     public SchemaRegistry() {
         instance = this;
 
         schemaMap = Collections.emptyMap();
         dynamicSchemas = new HashMap<>();
+        expandedIdentifiers = Collections.emptyMap();
+        slotIndex = Collections.emptyMap();
+        unindexedSchemas = emptySchemas;
+        itemCandidates = new ConcurrentHashMap<>();
+        moduleKeys = Collections.emptySet();
 
-        DataManager.schemaData.onReload(() -> setupSchemas(DataManager.schemaData.getData()));
+        DataManager.schemaData.onReload(this::onReload);
+        ModuleRegistry.instance.onReload(() -> modulesChanged = true);
+        DataManager.instance.onReloadComplete(this::onReloadComplete);
     }
 
     /**
@@ -37,18 +64,121 @@ public class SchemaRegistry {
         dynamicSchemas.put(new ResourceLocation(TetraMod.MOD_ID, schema.getKey()), schema);
     }
 
-    private void setupSchemas(Map<ResourceLocation, SchemaDefinition> data) {
-        schemaMap = data.entrySet().stream()
-                .filter(entry -> validateSchemaDefinition(entry.getKey(), entry.getValue()))
-                .flatMap(entry -> createSchemas(entry.getKey(), entry.getValue()).stream())
-                .filter(entry -> entry.getRight() != null)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    private void onReload() {
+        Map<ResourceLocation, SchemaDefinition> data = DataManager.schemaData.getData();
+        DataChanges changes = DataManager.schemaData.getChanges();
 
-        dynamicSchemas.forEach((identifier, schema) -> schemaMap.put(identifier, schema));
+        if (schemaMap.isEmpty()) {
+            setupSchemas(data, data.keySet(), new HashMap<>(), new HashMap<>());
+        } else {
+            Set<ResourceLocation> updated = new HashSet<>(changes.added);
+            updated.addAll(changes.changed);
+            updateSchemas(data, updated, changes.removed);
+        }
 
         RepairRegistry.instance.injectFromSchemas(data.values());
     }
 
+    /**
+     * Modules may change without the schema store being reloaded, clients are only sent stores that have changed.
+     */
+    private void onReloadComplete() {
+        if (modulesChanged) {
+            updateSchemas(DataManager.schemaData.getData(), new HashSet<>(), Collections.emptySet());
+        }
+    }
+
+    /**
+     * Recreates the schemas for the given definitions and drops the schemas for removed definitions. Schemas are validated against the
+     * available modules when created, so schemas that reference modules that have been added or removed since are also recreated.
+     */
+    private void updateSchemas(Map<ResourceLocation, SchemaDefinition> data, Set<ResourceLocation> updated,
+            Collection<ResourceLocation> removed) {
+        if (modulesChanged) {
+            Set<String> changedKeys = new HashSet<>(Sets.symmetricDifference(moduleKeys, ModuleRegistry.instance.getModuleKeys()));
+            if (!changedKeys.isEmpty()) {
+                data.entrySet().stream()
+                        .filter(entry -> referencesModules(entry.getValue(), changedKeys))
+                        .map(Map.Entry::getKey)
+                        .forEach(updated::add);
+            }
+        }
+
+        if (updated.isEmpty() && removed.isEmpty()) {
+            moduleKeys = ModuleRegistry.instance.getModuleKeys();
+            modulesChanged = false;
+            return;
+        }
+
+        Map<ResourceLocation, UpgradeSchema> schemas = new HashMap<>(schemaMap);
+        Map<ResourceLocation, List<ResourceLocation>> expanded = new HashMap<>(expandedIdentifiers);
+
+        Stream.concat(updated.stream(), removed.stream())
+                .map(expanded::remove)
+                .filter(Objects::nonNull)
+                .forEach(identifiers -> identifiers.forEach(schemas::remove));
+
+        setupSchemas(data, updated, schemas, expanded);
+    }
+
+    private boolean referencesModules(SchemaDefinition definition, Set<String> moduleKeys) {
+        if (definition == null || definition.slots == null) {
+            return false;
+        }
+
+        // multislot schemas reference a suffixed module key per slot, see createSchemas
+        String[] keySuffixes = definition.slots.length == definition.keySuffixes.length ? definition.keySuffixes : new String[] { "" };
+        return Arrays.stream(definition.outcomes)
+                .map(outcome -> outcome.moduleKey)
+                .filter(Objects::nonNull)
+                .anyMatch(moduleKey -> Arrays.stream(keySuffixes).anyMatch(suffix -> moduleKeys.contains(moduleKey + suffix)));
+    }
+
+    private void setupSchemas(Map<ResourceLocation, SchemaDefinition> data, Set<ResourceLocation> identifiers,
+            Map<ResourceLocation, UpgradeSchema> schemas, Map<ResourceLocation, List<ResourceLocation>> expanded) {
+        data.entrySet().stream()
+                .filter(entry -> identifiers.contains(entry.getKey()))
+                .filter(entry -> validateSchemaDefinition(entry.getKey(), entry.getValue()))
+                .forEach(entry -> {
+                    List<ResourceLocation> entryIdentifiers = new ArrayList<>();
+                    for (Pair<ResourceLocation, ConfigSchema> pair : createSchemas(entry.getKey(), entry.getValue())) {
+                        if (pair.getRight() != null) {
+                            schemas.put(pair.getKey(), pair.getRight());
+                            entryIdentifiers.add(pair.getKey());
+                        }
+                    }
+                    expanded.put(entry.getKey(), entryIdentifiers);
+                });
+
+        dynamicSchemas.forEach(schemas::put);
+
+        schemaMap = schemas;
+        expandedIdentifiers = expanded;
+        moduleKeys = ModuleRegistry.instance.getModuleKeys();
+        modulesChanged = false;
+
+        buildIndex(schemas.values());
+    }
+
+    private void buildIndex(Collection<UpgradeSchema> schemas) {
+        Map<String, List<UpgradeSchema>> slotSchemas = new HashMap<>();
+        List<UpgradeSchema> unindexed = new ArrayList<>();
+        for (UpgradeSchema schema : schemas) {
+            if (schema instanceof ConfigSchema) {
+                for (String slot : ((ConfigSchema) schema).getSlots()) {
+                    slotSchemas.computeIfAbsent(slot, key -> new ArrayList<>()).add(schema);
+                }
+            } else {
+                unindexed.add(schema);
+            }
+        }
+
+        slotIndex = slotSchemas.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().toArray(new UpgradeSchema[0])));
+        unindexedSchemas = unindexed.toArray(new UpgradeSchema[0]);
+        itemCandidates = new ConcurrentHashMap<>();
+    }
+
     private boolean validateSchemaDefinition(ResourceLocation identifier, SchemaDefinition definition) {
         if (definition == null) {
             logger.warn("Failed to create schema from schema definition '{}': Data is null (probably due to it failing to parse)",
@@ -99,4 +229,46 @@ public class SchemaRegistry {
     public Collection<UpgradeSchema> getAllSchemas() {
         return schemaMap.values();
     }
+
+    /**
+     * Get the schemas that could possibly be applied to the given item, based on the slots of the item. Config driven schemas that do not
+     * apply to any slot of the item are left out, the full applicability checks still have to be done on the returned schemas.
+     * @param item An item
+     * @return An array of candidate schemas
+     */
+    public UpgradeSchema[] getCandidateSchemas(Item item) {
+        return itemCandidates.computeIfAbsent(item, this::findCandidateSchemas);
+    }
+
+    private UpgradeSchema[] findCandidateSchemas(Item item) {
+        if (item instanceof ItemModular) {
+            ItemModular modularItem = (ItemModular) item;
+            return Stream.concat(
+                    Stream.concat(Arrays.stream(modularItem.getMajorModuleKeys()), Arrays.stream(modularItem.getMinorModuleKeys()))
+                            .map(slot -> slotIndex.get(slot))
+                            .filter(Objects::nonNull)
+                            .flatMap(Arrays::stream),
+                    Arrays.stream(unindexedSchemas))
+                    .distinct()
+                    .toArray(UpgradeSchema[]::new);
+        }
+
+        return schemaMap.values().toArray(new UpgradeSchema[0]);
+    }
+
+    /**
+     * Get the config driven schemas that apply to the given slot, regardless of item.
+     * @param slot A slot key
+     * @return An array of schemas, which should not be modified
+     */
+    public UpgradeSchema[] getIndexedSchemas(String slot) {
+        return slotIndex.getOrDefault(slot, emptySchemas);
+    }
+
+    /**
+     * @return Schemas that are not config driven, these are not indexed by slot
+     */
+    public UpgradeSchema[] getUnindexedSchemas() {
+        return unindexedSchemas;
+    }
 }
@@ -8,6 +8,10 @@ import java.lang.reflect.Type;
 
 public class CapabilityData extends EnumTierData<Capability> {
 
+    public CapabilityData() {
+        super(Capability.class);
+    }
+
     // todo: is this possible to implement as a generic?
     public static class Deserializer implements JsonDeserializer<CapabilityData> {
 
@@ -23,11 +27,11 @@ public class CapabilityData extends EnumTierData<Capability> {
                         if (entryValue.isJsonArray()) {
                             JsonArray entryArray = entryValue.getAsJsonArray();
                             if (entryArray.size() == 2) {
-                                data.valueMap.put(Capability.valueOf(entry.getKey()), entryArray.get(0).getAsInt());
-                                data.efficiencyMap.put(Capability.valueOf(entry.getKey()), entryArray.get(1).getAsFloat());
+                                data.setLevel(Capability.valueOf(entry.getKey()), entryArray.get(0).getAsInt());
+                                data.setEfficiency(Capability.valueOf(entry.getKey()), entryArray.get(1).getAsFloat());
                             }
                         } else {
-                            data.valueMap.put(Capability.valueOf(entry.getKey()), entryValue.getAsInt());
+                            data.setLevel(Capability.valueOf(entry.getKey()), entryValue.getAsInt());
                         }
                     });
 
@@ -8,6 +8,10 @@ import java.lang.reflect.Type;
 
 public class EffectData extends EnumTierData<ItemEffect> {
 
+    public EffectData() {
+        super(ItemEffect.class);
+    }
+
     // todo: is this possible to implement as a generic?
     public static class Deserializer implements JsonDeserializer<EffectData> {
 
@@ -23,11 +27,11 @@ public class EffectData extends EnumTierData<ItemEffect> {
                         if (entryValue.isJsonArray()) {
                             JsonArray entryArray = entryValue.getAsJsonArray();
                             if (entryArray.size() == 2) {
-                                data.valueMap.put(ItemEffect.valueOf(entry.getKey()), entryArray.get(0).getAsInt());
-                                data.efficiencyMap.put(ItemEffect.valueOf(entry.getKey()), entryArray.get(1).getAsFloat());
+                                data.setLevel(ItemEffect.valueOf(entry.getKey()), entryArray.get(0).getAsInt());
+                                data.setEfficiency(ItemEffect.valueOf(entry.getKey()), entryArray.get(1).getAsFloat());
                             }
                         } else {
-                            data.valueMap.put(ItemEffect.valueOf(entry.getKey()), entryValue.getAsInt());
+                            data.setLevel(ItemEffect.valueOf(entry.getKey()), entryValue.getAsInt());
                         }
                     });
 
@@ -1,38 +1,97 @@
 package se.mickelus.tetra.module.data;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Set;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
 
-public class EnumTierData<T extends Enum> {
+/**
+ * Levels and efficiencies for a set of enum values, e.g. capabilities or item effects. Values are stored in arrays indexed by ordinal
+ * and presence is tracked in enum sets, so that lookups do not need to box or hash.
+ * @param <T> The enum type
+ */
+public class EnumTierData<T extends Enum<T>> {
 
-    public Map<T, Integer> valueMap;
-    public Map<T, Float> efficiencyMap;
+    private final T[] constants;
 
-    public EnumTierData() {
-        valueMap = new HashMap<>();
-        efficiencyMap = new HashMap<>();
+    private final int[] levels;
+    private final float[] efficiencies;
+
+    private final EnumSet<T> levelPresence;
+    private final EnumSet<T> efficiencyPresence;
+
+    private final Set<T> values;
+
+    public EnumTierData(Class<T> type) {
+        constants = type.getEnumConstants();
+
+        levels = new int[constants.length];
+        efficiencies = new float[constants.length];
+
+        levelPresence = EnumSet.noneOf(type);
+        efficiencyPresence = EnumSet.noneOf(type);
+
+        values = Collections.unmodifiableSet(levelPresence);
     }
 
     public boolean contains(T capability) {
-        return valueMap.containsKey(capability);
+        return levelPresence.contains(capability);
     }
 
     public int getLevel(T capability) {
-        if (contains(capability)) {
-            return valueMap.get(capability);
-        }
-        return 0;
+        return levels[capability.ordinal()];
     }
 
     public float getEfficiency(T capability) {
-        if (efficiencyMap.containsKey(capability)) {
-            return efficiencyMap.get(capability);
-        }
-        return 0;
+        return efficiencies[capability.ordinal()];
+    }
+
+    public void setLevel(T capability, int level) {
+        levels[capability.ordinal()] = level;
+        levelPresence.add(capability);
     }
 
+    public void setEfficiency(T capability, float efficiency) {
+        efficiencies[capability.ordinal()] = efficiency;
+        efficiencyPresence.add(capability);
+    }
+
+    /**
+     * @return true if there are neither any levels nor any efficiencies set
+     */
+    public boolean isEmpty() {
+        return levelPresence.isEmpty() && efficiencyPresence.isEmpty();
+    }
+
+    /**
+     * @return an unmodifiable view of all values that have a level set
+     */
     public Set<T> getValues() {
-        return valueMap.keySet();
+        return values;
+    }
+
+    /**
+     * Iterates over all values that have a level set, in ordinal order.
+     * @param consumer Called with each value and its level
+     */
+    public void forEachLevel(ObjIntConsumer<T> consumer) {
+        for (T constant : constants) {
+            if (levelPresence.contains(constant)) {
+                consumer.accept(constant, levels[constant.ordinal()]);
+            }
+        }
+    }
+
+    /**
+     * Iterates over all values that have an efficiency set, in ordinal order.
+     * @param consumer Called with each value and its efficiency
+     */
+    public void forEachEfficiency(ObjDoubleConsumer<T> consumer) {
+        for (T constant : constants) {
+            if (efficiencyPresence.contains(constant)) {
+                consumer.accept(constant, efficiencies[constant.ordinal()]);
+            }
+        }
     }
 }
@@ -2,6 +2,8 @@ package se.mickelus.tetra.module.data;
 
 import net.minecraft.util.ResourceLocation;
 
+import java.util.Objects;
+
 public class ModuleModel {
     public String type = "item";
     public ResourceLocation location;
@@ -23,4 +25,27 @@ public class ModuleModel {
         this.location = location;
         this.tint = tint;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ModuleModel that = (ModuleModel) o;
+        return tint == that.tint
+                && Objects.equals(type, that.type)
+                && Objects.equals(location, that.location);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type != null ? type.hashCode() : 0;
+        result = 31 * result + (location != null ? location.hashCode() : 0);
+        result = 31 * result + tint;
+        return result;
+    }
 }
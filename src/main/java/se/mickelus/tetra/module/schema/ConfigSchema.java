@@ -33,6 +33,9 @@ public class ConfigSchema extends BaseSchema {
     private String keySuffix;
     private String moduleSlot;
 
+    // built lazily, and rebuilt when tags are reloaded
+    private volatile OutcomeIndex outcomeIndex;
+
     public ConfigSchema(SchemaDefinition definition) throws InvalidSchemaException {
         this(definition, "", null);
     }
@@ -60,11 +63,18 @@ public class ConfigSchema extends BaseSchema {
         return null;
     }
 
+    private OutcomeIndex getOutcomeIndex() {
+        OutcomeIndex index = outcomeIndex;
+        if (index == null || !index.isValid(definition.outcomes)) {
+            index = new OutcomeIndex(definition.outcomes);
+            outcomeIndex = index;
+        }
+
+        return index;
+    }
+
     private Optional<OutcomeDefinition> getOutcomeFromMaterial(ItemStack materialStack, int slot) {
-        return Arrays.stream(definition.outcomes)
-                .filter(outcome -> outcome.materialSlot == slot)
-                .filter(outcome -> outcome.material.predicate != null && outcome.material.predicate.test(materialStack))
-                .reduce((a, b) -> b); // returns the last element, there's no findLast :c
+        return getOutcomeIndex().find(materialStack, slot);
     }
 
     @Override
@@ -124,8 +134,8 @@ public class ConfigSchema extends BaseSchema {
         }
 
         for (int i = 0; i < definition.materialSlotCount; i++) {
-            if (!acceptsMaterial(itemStack, itemSlot, i, materials[i])
-                    || materials[i].getCount() < getOutcomeFromMaterial(materials[i], i).map(outcome -> outcome.material.count).orElse(0)) {
+            ItemStack material = materials[i];
+            if (!getOutcomeFromMaterial(material, i).map(outcome -> material.getCount() >= outcome.material.count).orElse(false)) {
                 return false;
             }
         }
@@ -145,6 +155,17 @@ public class ConfigSchema extends BaseSchema {
         return definition.requirement.test(itemStack);
     }
 
+    /**
+     * @return the slots that this schema can be applied to, regardless of item
+     */
+    public String[] getSlots() {
+        if (moduleSlot != null) {
+            return new String[] { moduleSlot };
+        }
+
+        return definition.slots;
+    }
+
     @Override
     public boolean isApplicableForSlot(String slot, ItemStack targetStack) {
         if (moduleSlot != null) {
@@ -158,15 +179,7 @@ public class ConfigSchema extends BaseSchema {
     @Override
     public boolean isVisibleForPlayer(PlayerEntity player, ItemStack targetStack) {
         if (definition.materialRevealSlot > -1) {
-            for (int x = 0; x < 9; x++) {
-                for (int y = 0; y < 4; y++) {
-                    if (getOutcomeFromMaterial(player.inventory.getStackInSlot(y * 9 + x), definition.materialRevealSlot).isPresent()) {
-                        return true;
-                    }
-                }
-            }
-
-            return false;
+            return getOutcomeIndex().matchesAny(MaterialFingerprint.get(player), definition.materialRevealSlot);
         }
 
         return true;
@@ -299,7 +312,7 @@ public class ConfigSchema extends BaseSchema {
                     ModuleCraftCriterion.trigger((ServerPlayerEntity) player, itemStack, upgradedStack, getKey(), slot, outcome.moduleKey,
                             outcome.moduleVariant, null, -1);
                 } else {
-                    outcome.requiredCapabilities.valueMap.forEach((capability, capabilityLevel) ->
+                    outcome.requiredCapabilities.forEachLevel((capability, capabilityLevel) ->
                             ModuleCraftCriterion.trigger((ServerPlayerEntity) player, itemStack, upgradedStack, getKey(), slot, outcome.moduleKey,
                                     outcome.moduleVariant, capability, capabilityLevel));
                 }
@@ -309,7 +322,7 @@ public class ConfigSchema extends BaseSchema {
                 if (outcome.requiredCapabilities.getValues().isEmpty()) {
                     ImprovementCraftCriterion.trigger((ServerPlayerEntity) player, itemStack, upgradedStack, getKey(), slot, improvement, level, null, -1);
                 } else {
-                    outcome.requiredCapabilities.valueMap.forEach((capability, capabilityLevel) ->
+                    outcome.requiredCapabilities.forEachLevel((capability, capabilityLevel) ->
                             ImprovementCraftCriterion.trigger((ServerPlayerEntity) player, itemStack, upgradedStack, getKey(), slot, improvement, level,
                             capability, capabilityLevel));
                 }
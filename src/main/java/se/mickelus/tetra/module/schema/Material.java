@@ -8,6 +8,7 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.JsonToNBT;
 import net.minecraft.tags.ItemTags;
+import net.minecraft.tags.Tag;
 import net.minecraft.util.JSONUtils;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.ITextComponent;
@@ -16,6 +17,8 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 
 import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Materials define a required item in a schema outcome. It's parsed (and mostly it behaves) as if it was an
@@ -33,6 +36,9 @@ public class Material {
     private ItemStack itemStack;
     private ResourceLocation tagLocation;
 
+    // true if the predicate matches on nothing but the item or tag, so that matching items can be resolved up front
+    private boolean indexable;
+
     public static class MaterialDeserializer implements JsonDeserializer<Material> {
 
         @Override
@@ -45,6 +51,8 @@ public class Material {
                 material.count = JSONUtils.getInt(jsonObject, "count", 1);
                 jsonObject.remove("count");
 
+                material.indexable = jsonObject.size() == 1 && (jsonObject.has("item") || jsonObject.has("tag"));
+
                 if (jsonObject.has("item")) {
                     Item item = JSONUtils.getItem(jsonObject, "item");
                     material.itemStack = new ItemStack(item, material.count);
@@ -62,7 +70,15 @@ public class Material {
                 }
 
                 try {
-                    material.predicate = ItemPredicate.deserialize(element);
+                    if (material.tagLocation != null && !jsonObject.has("type")) {
+                        // vanilla predicates resolve tags when parsed, the tag is instead resolved when tested so that materials are not
+                        // left outdated (or invalid if the tag did not exist yet) when tags are reloaded
+                        jsonObject.remove("tag");
+                        material.predicate = new TagPredicate(material.tagLocation,
+                                jsonObject.size() > 0 ? ItemPredicate.deserialize(jsonObject) : ItemPredicate.ANY);
+                    } else {
+                        material.predicate = ItemPredicate.deserialize(element);
+                    }
                 } catch (JsonSyntaxException e) {
                     // skips setting craft predicate, material will be treated as invalid
                 }
@@ -71,6 +87,25 @@ public class Material {
         }
     }
 
+    /**
+     * Matches items in a tag, and against any other properties of the material. The tag is looked up every time it's tested.
+     */
+    private static class TagPredicate extends ItemPredicate {
+        private final ResourceLocation tagLocation;
+        private final ItemPredicate predicate;
+
+        TagPredicate(ResourceLocation tagLocation, ItemPredicate predicate) {
+            this.tagLocation = tagLocation;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean test(ItemStack itemStack) {
+            Tag<Item> tag = ItemTags.getCollection().get(tagLocation);
+            return tag != null && tag.contains(itemStack.getItem()) && predicate.test(itemStack);
+        }
+    }
+
     @OnlyIn(Dist.CLIENT)
     public ITextComponent[] getDisplayNames() {
         if (itemStack != null) {
@@ -112,4 +147,26 @@ public class Material {
     public boolean isTagged() {
         return tagLocation != null;
     }
+
+    /**
+     * @return true if this material matches on nothing but an item or a tag
+     */
+    public boolean isIndexable() {
+        return indexable;
+    }
+
+    /**
+     * @return all items matched by this material, only complete if the material is indexable
+     */
+    public Collection<Item> getIndexableItems() {
+        if (itemStack != null) {
+            return Collections.singletonList(itemStack.getItem());
+        } else if (tagLocation != null) {
+            return ItemTags.getCollection()
+                    .getOrCreate(tagLocation)
+                    .getAllElements();
+        }
+
+        return Collections.emptyList();
+    }
 }
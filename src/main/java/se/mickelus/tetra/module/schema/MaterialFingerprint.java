@@ -0,0 +1,62 @@
+package se.mickelus.tetra.module.schema;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import java.util.*;
+
+/**
+ * The distinct items and itemstacks in the main inventory of a player, used to check if a player holds the material required to reveal
+ * a schema without scanning the inventory for every schema. A fingerprint is reused for as long as the player is on the same tick and
+ * the inventory has not been marked as changed, which covers all schemas checked during a single refresh of a schema listing.
+ */
+public class MaterialFingerprint {
+    private static final Cache<PlayerEntity, MaterialFingerprint> fingerprints = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final int ticksExisted;
+    private final int timesChanged;
+
+    /**
+     * All distinct items in the inventory, empty slots are included as air.
+     */
+    final Set<Item> items;
+
+    /**
+     * Itemstacks that differ in item, damage or nbt, used when materials have to be matched using the full item predicate.
+     */
+    final List<ItemStack> stacks;
+
+    private MaterialFingerprint(PlayerEntity player) {
+        ticksExisted = player.ticksExisted;
+        timesChanged = player.inventory.getTimesChanged();
+
+        items = new HashSet<>();
+        stacks = new ArrayList<>();
+        for (ItemStack itemStack : player.inventory.mainInventory) {
+            items.add(itemStack.getItem());
+
+            if (stacks.stream().noneMatch(stack -> ItemStack.areItemsEqual(stack, itemStack) && ItemStack.areItemStackTagsEqual(stack, itemStack))) {
+                stacks.add(itemStack);
+            }
+        }
+    }
+
+    private boolean isValid(PlayerEntity player) {
+        return ticksExisted == player.ticksExisted && timesChanged == player.inventory.getTimesChanged();
+    }
+
+    public static MaterialFingerprint get(PlayerEntity player) {
+        MaterialFingerprint fingerprint = fingerprints.getIfPresent(player);
+        if (fingerprint == null || !fingerprint.isValid(player)) {
+            fingerprint = new MaterialFingerprint(player);
+            fingerprints.put(player, fingerprint);
+        }
+
+        return fingerprint;
+    }
+}
@@ -0,0 +1,121 @@
+package se.mickelus.tetra.module.schema;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.tags.ItemTags;
+
+import java.util.*;
+
+/**
+ * Lookup from material to outcome for the outcomes of a schema, per material slot. Materials that only match against an item or a tag
+ * are resolved into a map from item to outcome, other materials (e.g. those that match against nbt) have their predicates tested as
+ * before. Tags are resolved when the index is built, so the index has to be rebuilt when tags are reloaded.
+ */
+class OutcomeIndex {
+    private final OutcomeDefinition[] outcomes;
+    private final int tagGeneration;
+
+    // maps items to the index of the last matching outcome, per material slot
+    private final Map<Item, Integer>[] itemOutcomes;
+
+    // indices of outcomes that have to be tested using the full predicate, in ascending order per material slot
+    private final int[][] predicateOutcomes;
+
+    @SuppressWarnings("unchecked")
+    OutcomeIndex(OutcomeDefinition[] outcomes) {
+        this.outcomes = outcomes;
+        tagGeneration = ItemTags.getGeneration();
+
+        int slotCount = Arrays.stream(outcomes)
+                .mapToInt(outcome -> outcome.materialSlot + 1)
+                .max()
+                .orElse(0);
+
+        itemOutcomes = new Map[slotCount];
+        List<List<Integer>> predicateLists = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            itemOutcomes[i] = new HashMap<>();
+            predicateLists.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < outcomes.length; i++) {
+            Material material = outcomes[i].material;
+            int slot = outcomes[i].materialSlot;
+            if (slot < 0 || material.predicate == null) {
+                continue;
+            }
+
+            if (material.isIndexable()) {
+                for (Item item : material.getIndexableItems()) {
+                    itemOutcomes[slot].put(item, i);
+                }
+            } else {
+                predicateLists.get(slot).add(i);
+            }
+        }
+
+        predicateOutcomes = predicateLists.stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    /**
+     * @return true if this index was built from the given outcomes and tags have not been reloaded since
+     */
+    boolean isValid(OutcomeDefinition[] outcomes) {
+        return this.outcomes == outcomes && tagGeneration == ItemTags.getGeneration();
+    }
+
+    /**
+     * Find the outcome for the given material, if several outcomes match the material the last one is returned.
+     */
+    Optional<OutcomeDefinition> find(ItemStack materialStack, int slot) {
+        if (slot < 0 || slot >= itemOutcomes.length) {
+            return Optional.empty();
+        }
+
+        int result = itemOutcomes[slot].getOrDefault(materialStack.getItem(), -1);
+
+        int[] candidates = predicateOutcomes[slot];
+        for (int i = candidates.length - 1; i >= 0 && candidates[i] > result; i--) {
+            if (outcomes[candidates[i]].material.predicate.test(materialStack)) {
+                result = candidates[i];
+                break;
+            }
+        }
+
+        if (result >= 0) {
+            return Optional.of(outcomes[result]);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Checks if any of the materials in the given fingerprint matches an outcome in the given material slot.
+     */
+    boolean matchesAny(MaterialFingerprint fingerprint, int slot) {
+        if (slot < 0 || slot >= itemOutcomes.length) {
+            return false;
+        }
+
+        Map<Item, Integer> indexedOutcomes = itemOutcomes[slot];
+        if (indexedOutcomes.size() < fingerprint.items.size()) {
+            if (indexedOutcomes.keySet().stream().anyMatch(fingerprint.items::contains)) {
+                return true;
+            }
+        } else if (fingerprint.items.stream().anyMatch(indexedOutcomes::containsKey)) {
+            return true;
+        }
+
+        for (int index : predicateOutcomes[slot]) {
+            for (ItemStack itemStack : fingerprint.stacks) {
+                if (outcomes[index].material.predicate.test(itemStack)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
@@ -24,7 +24,7 @@ import java.util.function.Supplier;
 public class PacketHandler {
     private static final Logger logger = LogManager.getLogger();
 
-    private static final String PROTOCOL_VERSION = "1";
+    private static final String PROTOCOL_VERSION = "2";
     public static final SimpleChannel channel = NetworkRegistry.newSimpleChannel(
             new ResourceLocation(TetraMod.MOD_ID, "main"),
             () -> PROTOCOL_VERSION,
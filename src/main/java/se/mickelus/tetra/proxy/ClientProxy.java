@@ -18,6 +18,7 @@ import se.mickelus.tetra.blocks.workbench.WorkbenchTESR;
 import se.mickelus.tetra.blocks.workbench.WorkbenchTile;
 import se.mickelus.tetra.blocks.workbench.gui.WorkbenchScreen;
 import se.mickelus.tetra.client.model.ModularModelLoader;
+import se.mickelus.tetra.data.DataSyncHandler;
 import se.mickelus.tetra.generation.ExtendedStructureTESR;
 import se.mickelus.tetra.items.ITetraItem;
 import se.mickelus.tetra.items.modular.ThrownModularItemEntity;
@@ -52,6 +53,7 @@ public class ClientProxy implements IProxy {
     @Override
     public void postInit() {
         MinecraftForge.EVENT_BUS.register(new CapabililtyInteractiveOverlay());
+        MinecraftForge.EVENT_BUS.register(new DataSyncHandler());
     }
 
     @Override